@@ -0,0 +1,488 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import com.ovrhere.android.morseflash.morsecode.decoder.MorseSignalDecoder;
+import com.ovrhere.android.morseflash.morsecode.dictionaries.InternationalMorseCode;
+import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary;
+import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary.MorseCharacter;
+import com.ovrhere.android.morseflash.morsecode.notation.NotationDecoder;
+import com.ovrhere.android.morseflash.morsecode.notation.NotationEncoder;
+import com.ovrhere.android.morseflash.morsecode.transcriber.MorseEdgeStream;
+import com.ovrhere.android.morseflash.morsecode.transcriber.MorseTimeline;
+import com.ovrhere.android.morseflash.morsecode.transcriber.MorseTranscriber;
+import com.ovrhere.android.morseflash.morsecode.transcriber.VirtualSignalScheduler;
+import com.ovrhere.android.morseflash.torch.FakeTorchCamera;
+import com.ovrhere.android.morseflash.torch.PreparedTorchDriver;
+
+/**
+ * <p>A self-contained micro-benchmark harness for the Android-free morsecode
+ * core and torch driver, run on a desktop JVM. Each benchmark is warmed up and then measured
+ * over several timed iterations, reporting the time and the bytes allocated
+ * per operation; allocation is read from the HotSpot thread allocation 
+ * counter where available.</p>
+ * 
+ * <p>Usage: <code>MorseBenchmark [name-filter...]</code>. 
+ * See <code>benchmark/README.md</code> for building.</p>
+ * 
+ * @author Jason J.
+ * @version 0.3.0-20261017
+ */
+public class MorseBenchmark {
+	/** The number of warm up iterations. */
+	final static private int WARMUP_ITERATIONS = 5;
+	/** The number of measured iterations. */
+	final static private int MEASURE_ITERATIONS = 10;
+	/** The target time of each iteration in nanoseconds. */
+	final static private long ITERATION_TIME = 200000000L; //200ms
+	/** Sample text of mixed case letters, digits and punctuation. */
+	final static private String SAMPLE_TEXT = 
+			"The quick brown fox jumps over the lazy dog, 0123456789 times? ";
+	/** The time each fake camera call takes, standing in for the camera 
+	 * service. */
+	final static private long CAMERA_CALL_TIME = 1000L; //1us
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// End constants
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Consumes results so they are not optimised away. */
+	static volatile long sink = 0;
+	
+	public static void main(String[] args) throws Exception {
+		final List<Benchmark> benchmarks = createBenchmarks();
+		final AllocationCounter allocations = new AllocationCounter();
+		System.out.println(String.format(Locale.US, "%-34s %14s %12s %10s", 
+				"benchmark", "ops/s", "ns/op", 
+				allocations.isSupported() ? "B/op" : "B/op(n/a)"));
+		for (Benchmark benchmark : benchmarks) {
+			if (!matches(benchmark.name, args)){
+				continue;
+			}
+			long calls = calibrate(benchmark);
+			for (int index = 0; index < WARMUP_ITERATIONS; index++) {
+				time(benchmark, calls);
+			}
+			long totalNanos = 0;
+			long totalBytes = 0;
+			for (int index = 0; index < MEASURE_ITERATIONS; index++) {
+				final long bytes = allocations.get();
+				totalNanos += time(benchmark, calls);
+				totalBytes += allocations.get() - bytes;
+			}
+			final double ops = (double) calls * benchmark.opsPerCall * MEASURE_ITERATIONS;
+			System.out.println(String.format(Locale.US, "%-34s %14.0f %12.2f %10.2f",
+					benchmark.name, ops * 1e9 / totalNanos, totalNanos / ops,
+					totalBytes / ops));
+		}
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Benchmarks
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** @return All benchmarks, in order. */
+	static private List<Benchmark> createBenchmarks() throws IOException {
+		final MorseDictionary dictionary = new InternationalMorseCode();
+		final String text = repeat(SAMPLE_TEXT, 64);
+		final int LENGTH = text.length();
+		final MorseCharacter[] characters = new MorseCharacter[LENGTH];
+		final String[] patterns = new String[LENGTH];
+		for (int index = 0; index < LENGTH; index++) {
+			characters[index] = dictionary.encodeChar(text.charAt(index));
+			patterns[index] = notation(dictionary, text.charAt(index));
+		}
+		final StringBuilder notationBuilder = new StringBuilder();
+		new NotationEncoder(dictionary).encode(text, notationBuilder);
+		final String notation = notationBuilder.toString();
+		final MorseTimeline timeline = MorseTimeline.compile(dictionary, text);
+		
+		List<Benchmark> list = new ArrayList<Benchmark>();
+		list.add(new Benchmark("dictionary.encodeChar(char)", LENGTH) {
+			@Override
+			void run() {
+				long hash = 0;
+				for (int index = 0; index < LENGTH; index++) {
+					MorseCharacter mchar = dictionary.encodeChar(text.charAt(index));
+					hash += mchar == null ? 0 : mchar.getCode();
+				}
+				sink += hash;
+			}
+		});
+		list.add(new Benchmark("encode: HashMap baseline", LENGTH) {
+			//the lookup the encode table replaced: boxed, case folded by call.
+			final HashMap<Character, MorseCharacter> map = 
+					new HashMap<Character, MorseCharacter>();
+			{
+				for (char character = 0; character < 256; character++) {
+					final MorseCharacter mchar = dictionary.encodeChar(character);
+					if (mchar != null && !Character.isUpperCase(character)){
+						map.put(character, mchar);
+					}
+				}
+			}
+			@Override
+			void run() {
+				long hash = 0;
+				for (int index = 0; index < LENGTH; index++) {
+					MorseCharacter mchar = map.get(
+							Character.toLowerCase(text.charAt(index)));
+					hash += mchar == null ? 0 : mchar.getCode();
+				}
+				sink += hash;
+			}
+		});
+		list.add(new Benchmark("dictionary.encodeChar(Character)", LENGTH) {
+			@Override
+			void run() {
+				long hash = 0;
+				for (int index = 0; index < LENGTH; index++) {
+					MorseCharacter mchar = dictionary.encodeChar(
+							Character.valueOf(text.charAt(index)));
+					hash += mchar == null ? 0 : mchar.getCode();
+				}
+				sink += hash;
+			}
+		});
+		list.add(new Benchmark("dictionary.decodeChar", LENGTH) {
+			@Override
+			void run() {
+				long hash = 0;
+				for (int index = 0; index < LENGTH; index++) {
+					if (characters[index] != null){
+						Character character = dictionary.decodeChar(characters[index]);
+						hash += character == null ? 0 : character.charValue();
+					}
+				}
+				sink += hash;
+			}
+		});
+		list.add(new Benchmark("dictionary.decodeCode", LENGTH) {
+			@Override
+			void run() {
+				long hash = 0;
+				for (int index = 0; index < LENGTH; index++) {
+					if (characters[index] != null){
+						hash += dictionary.decodeCode(characters[index].getCode());
+					}
+				}
+				sink += hash;
+			}
+		});
+		list.add(new Benchmark("MorseCharacter.Builder.create", LENGTH) {
+			@Override
+			void run() {
+				long hash = 0;
+				for (int index = 0; index < LENGTH; index++) {
+					hash += MorseCharacter.Builder.create(patterns[index]).getCode();
+				}
+				sink += hash;
+			}
+		});
+		list.add(new Benchmark("transcriber: message to edges", 1) {
+			//as setMessage only stores the text, this is the work per playback.
+			@Override
+			void run() {
+				final MorseEdgeStream edges = new MorseEdgeStream(dictionary, text);
+				long hash = 0;
+				while (edges.hasNext()){
+					hash += edges.next();
+				}
+				sink += hash;
+			}
+		});
+		list.add(new Benchmark("transcriber: start to first edge", 1) {
+			final StartListener listener = new StartListener();
+			final MorseTranscriber transcriber = new MorseTranscriber(dictionary, listener);
+			{
+				transcriber.setSignalScheduler(new VirtualSignalScheduler());
+				transcriber.setOnMorseListener(listener);
+				transcriber.setPadTime(0);
+				//one signal, so little follows the first edge.
+				transcriber.setMessage("e");
+			}
+			@Override
+			void run() {
+				listener.completed = false;
+				final long signals = listener.signals;
+				if (!transcriber.start()){
+					throw new IllegalStateException("Could not start");
+				}
+				while (listener.signals == signals){
+					Thread.yield();
+				}
+				//the next start is refused until this one has finished.
+				while (!listener.completed){
+					Thread.yield();
+				}
+				sink += listener.signals;
+			}
+		});
+		list.add(new Benchmark("MorseTimeline.compile (per char)", LENGTH) {
+			@Override
+			void run() {
+				sink += MorseTimeline.compile(dictionary, text).getDuration();
+			}
+		});
+		list.add(new Benchmark("MorseEdgeStream (per edge)", timeline.getEdgeCount()) {
+			final MorseEdgeStream edges = new MorseEdgeStream(dictionary, text);
+			@Override
+			void run() {
+				edges.rewind();
+				long hash = 0;
+				while (edges.hasNext()){
+					hash += edges.next();
+				}
+				sink += hash;
+			}
+		});
+		list.add(new Benchmark("MorseSignalDecoder (per edge)", timeline.getEdgeCount()) {
+			final MorseSignalDecoder decoder = new MorseSignalDecoder(dictionary, 
+					new MorseSignalDecoder.OnDecodeListener() {
+						@Override
+						public void onWordBreak() {
+							sink++;
+						}
+						@Override
+						public void onCharacterDecoded(char character, int code) {
+							sink += character;
+						}
+					}, 1000L);
+			@Override
+			void run() {
+				final int SIZE = timeline.getEdgeCount();
+				for (int index = 0; index < SIZE; index++) {
+					decoder.onEdge(MorseTimeline.isOnEdge(index), 
+							timeline.getEdgeOffset(index) * 1000L);
+				}
+				decoder.flush();
+				decoder.reset();
+			}
+		});
+		list.add(new Benchmark("NotationEncoder (per char)", LENGTH) {
+			final NotationEncoder encoder = new NotationEncoder(dictionary);
+			final StringBuilder out = new StringBuilder(LENGTH * 8);
+			@Override
+			void run() {
+				out.setLength(0);
+				try {
+					encoder.encode(text, out);
+				} catch (IOException e){
+					throw new RuntimeException(e);
+				}
+				sink += out.length();
+			}
+		});
+		list.add(new Benchmark("NotationDecoder (per char)", notation.length()) {
+			final NotationDecoder decoder = new NotationDecoder(dictionary);
+			final StringBuilder out = new StringBuilder(LENGTH);
+			@Override
+			void run() {
+				out.setLength(0);
+				try {
+					decoder.decode(notation, out);
+				} catch (IOException e){
+					throw new RuntimeException(e);
+				}
+				sink += out.length();
+			}
+		});
+		list.add(new Benchmark("torch: round trip (per edge)", 2) {
+			final FakeTorchCamera camera = new FakeTorchCamera(CAMERA_CALL_TIME, true);
+			@Override
+			void run() {
+				//as each edge was sent before the prepared driver.
+				FakeTorchCamera.Parameters params = camera.getParameters();
+				camera.setFlashMode(params, true);
+				camera.setParameters(params);
+				camera.startPreview();
+				camera.fireFlash();
+				params = camera.getParameters();
+				camera.setFlashMode(params, false);
+				camera.setParameters(params);
+				sink += camera.getCallCount();
+			}
+		});
+		list.add(new Benchmark("torch: prepared driver (per edge)", 2) {
+			final FakeTorchCamera camera = new FakeTorchCamera(CAMERA_CALL_TIME, true);
+			final PreparedTorchDriver<FakeTorchCamera.Parameters> driver = 
+					new PreparedTorchDriver<FakeTorchCamera.Parameters>(camera);
+			{
+				driver.prepare();
+			}
+			@Override
+			void run() {
+				driver.setTorch(true);
+				driver.setTorch(false);
+				sink += camera.getCallCount();
+			}
+		});
+		return list;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** @return The number of calls to fill roughly one iteration. */
+	static private long calibrate(Benchmark benchmark) {
+		long calls = 1;
+		while (true){
+			final long nanos = time(benchmark, calls);
+			if (nanos >= ITERATION_TIME / 10 || calls > Integer.MAX_VALUE){
+				return Math.max(1, calls * ITERATION_TIME / Math.max(1, nanos));
+			}
+			calls *= 2;
+		}
+	}
+	
+	/** @return The time in nanoseconds taken to run the benchmark the given calls. */
+	static private long time(Benchmark benchmark, long calls) {
+		final long start = System.nanoTime();
+		for (long call = 0; call < calls; call++) {
+			benchmark.run();
+		}
+		return System.nanoTime() - start;
+	}
+	
+	/** @return <code>true</code> if no filters are given or the name 
+	 * contains any of them. */
+	static private boolean matches(String name, String[] filters) {
+		if (filters.length == 0){
+			return true;
+		}
+		for (String filter : filters) {
+			if (name.contains(filter)){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/** @return The notation of a single character; empty if unsupported. */
+	static private String notation(MorseDictionary dictionary, char character) 
+			throws IOException {
+		StringBuilder builder = new StringBuilder();
+		new NotationEncoder(dictionary).encode(String.valueOf(character), builder);
+		return builder.toString();
+	}
+	
+	/** @return The text repeated. */
+	static private String repeat(String text, int count) {
+		StringBuilder builder = new StringBuilder(text.length() * count);
+		for (int index = 0; index < count; index++) {
+			builder.append(text);
+		}
+		return builder.toString();
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Internal classes
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** A named operation to measure. */
+	static abstract private class Benchmark {
+		/** The name to report. */
+		final String name;
+		/** The number of operations per call of {@link #run()}. */
+		final int opsPerCall;
+		
+		Benchmark(String name, int opsPerCall) {
+			this.name = name;
+			this.opsPerCall = opsPerCall;
+		}
+		
+		/** Runs the operations once. */
+		abstract void run();
+	}
+	
+	/** Counts signal starts and flags completed messages, from the 
+	 * transcriber's worker. */
+	static private class StartListener implements MorseTranscriber.OnSignalListener,
+			MorseTranscriber.OnTranscriptionListener {
+		volatile long signals = 0;
+		volatile boolean completed = false;
+		
+		@Override
+		public void onSignalStart() {
+			signals++;
+		}
+		@Override
+		public void onSignalEnd() {}
+		@Override
+		public void onMorseParsed() {}
+		@Override
+		public void onMorseCompleted() {
+			completed = true;
+		}
+		@Override
+		public void onMorseFailed(IOException error) {
+			completed = true;
+		}
+	}
+	
+	/** Reads the bytes allocated by a thread, if the JVM supports it. */
+	static class AllocationCounter {
+		/** The thread bean. */
+		final private ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		/** The HotSpot getThreadAllocatedBytes(long) method, or <code>null</code>. */
+		final private Method allocatedBytes;
+		
+		AllocationCounter() {
+			Method method = null;
+			try {
+				method = Class.forName("com.sun.management.ThreadMXBean")
+						.getMethod("getThreadAllocatedBytes", long.class);
+				method.invoke(bean, Thread.currentThread().getId());
+			} catch (Exception e){
+				method = null;
+			}
+			allocatedBytes = method;
+		}
+		
+		/** @return <code>true</code> if allocation can be measured. */
+		boolean isSupported() {
+			return allocatedBytes != null;
+		}
+		
+		/** @return The bytes allocated by the current thread, or 0. */
+		long get() {
+			return get(Thread.currentThread().getId());
+		}
+		
+		/** @param threadId The id of a live thread.
+		 * @return The bytes allocated by the thread, or 0. */
+		long get(long threadId) {
+			if (allocatedBytes == null){
+				return 0;
+			}
+			try {
+				return (Long) allocatedBytes.invoke(bean, threadId);
+			} catch (Exception e){
+				return 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,839 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import com.ovrhere.android.morseflash.morsecode.audio.MorseToneRenderer;
+import com.ovrhere.android.morseflash.morsecode.audio.PcmSink;
+import com.ovrhere.android.morseflash.morsecode.audio.WavFileSink;
+import com.ovrhere.android.morseflash.morsecode.decoder.AdaptiveSignalTiming;
+import com.ovrhere.android.morseflash.morsecode.decoder.LuminanceEdgeDetector;
+import com.ovrhere.android.morseflash.morsecode.decoder.LuminanceSampleReader;
+import com.ovrhere.android.morseflash.morsecode.decoder.MorseSignalDecoder;
+import com.ovrhere.android.morseflash.morsecode.decoder.OnEdgeListener;
+import com.ovrhere.android.morseflash.morsecode.decoder.ToneEdgeDetector;
+import com.ovrhere.android.morseflash.morsecode.decoder.WavSampleReader;
+import com.ovrhere.android.morseflash.morsecode.dictionaries.InternationalMorseCode;
+import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary;
+import com.ovrhere.android.morseflash.morsecode.transcriber.LatencyCalibrator;
+import com.ovrhere.android.morseflash.morsecode.transcriber.LatencyProfile;
+import com.ovrhere.android.morseflash.morsecode.transcriber.MorseEdgeStream;
+import com.ovrhere.android.morseflash.morsecode.transcriber.MorseTimeline;
+import com.ovrhere.android.morseflash.morsecode.transcriber.MorseTranscriber;
+import com.ovrhere.android.morseflash.morsecode.transcriber.SimulatedLatencyProbe;
+import com.ovrhere.android.morseflash.morsecode.transcriber.VirtualSignalScheduler;
+
+/**
+ * <p>Self-contained behavioural checks for the Android-free morsecode core,
+ * run on a desktop JVM alongside {@link MorseBenchmark}. Each check prints
+ * whether it passed along with what it measured; the exit status is
+ * non-zero if any failed.</p>
+ *
+ * <p>Usage: <code>MorseChecks [name-filter...]</code>.
+ * See <code>benchmark/README.md</code> for building.</p>
+ *
+ * @author Jason J.
+ * @version 0.2.0-20261017
+ */
+public class MorseChecks {
+	/** The message keyed in the decoding checks. */
+	final static private String DECODE_TEXT =
+			"the quick brown fox jumps over the lazy dog 0123456789 " +
+			"the quick brown fox jumps over the lazy dog";
+	/** The unit time at 12 WPM in nanoseconds. */
+	final static private long UNIT_12WPM = 100000000L; //100ms
+	/** The unit time at 25 WPM in nanoseconds. */
+	final static private long UNIT_25WPM = 48000000L; //48ms
+	/** The characters allowed to be misread while settling on a new speed;
+	 * a character of only dots at the step cannot be told apart. */
+	final static private int MAX_STEP_ERRORS = 2;
+	
+	/** The window sizes whose decoding cost is compared. */
+	final static private int SMALL_WINDOW = 16;
+	final static private int LARGE_WINDOW = 4096;
+	/** The most the large window may cost per edge relative to the small. */
+	final static private double MAX_WINDOW_COST_RATIO = 2.0;
+	/** The times the message is repeated for the cost check. */
+	final static private int COST_REPEATS = 200;
+	/** The timed runs per window size; the fastest is taken. */
+	final static private int COST_RUNS = 15;
+	
+	/** The message keyed in the tone decoding checks. */
+	final static private String TONE_TEXT = 
+			"the quick brown fox jumps over the lazy dog 0123456789";
+	/** The sample rate of the generated recordings in Hz. */
+	final static private int TONE_SAMPLE_RATE = MorseToneRenderer.DEFAULT_SAMPLE_RATE;
+	/** The tone frequency of the generated recordings in Hz. */
+	final static private int TONE_FREQUENCY = MorseToneRenderer.DEFAULT_TONE_FREQUENCY;
+	/** The scale applied to the rendered tone, leaving room for noise. */
+	final static private double TONE_GAIN = 0.25;
+	/** The silence before and after the message, so the detector starts 
+	 * and ends on noise alone. */
+	final static private int TONE_LEAD_TIME = 1000; //ms
+	/** The length of the noise-only recording. */
+	final static private int NOISE_ONLY_TIME = 60000; //ms
+	/** The slowest decoding allowed, as a multiple of real time. */
+	final static private double MIN_TONE_SPEED = 20;
+	
+	/** The ambient brightness of the luminance recordings. */
+	final static private double AMBIENT_LEVEL = 40;
+	/** The brightness the light adds when on. */
+	final static private double LIGHT_LEVEL = 80;
+	/** The standard deviation of the per-frame brightness noise. */
+	final static private double FRAME_NOISE = 4;
+	/** The chance of any frame being a single-frame flicker spike. */
+	final static private double FLICKER_CHANCE = 0.02;
+	/** The fewest frames between flicker spikes, so each is isolated 
+	 * within the detector's median filter. */
+	final static private int FLICKER_SPACING = 3;
+	/** The brightness of a flicker spike, either way. */
+	final static private double FLICKER_LEVEL = 60;
+	/** The minimum contrast of the detector; half the light, as the default 
+	 * is within the range of the frame noise alone. */
+	final static private float LUMINANCE_MIN_CONTRAST = (float) (LIGHT_LEVEL / 2);
+	/** The detector's window size in frames; its default. */
+	final static private int LUMINANCE_WINDOW_SIZE = 512;
+	/** The detector's debounce time; its default. */
+	final static private long LUMINANCE_DEBOUNCE_TIME = 20000000L; //20ms
+	/** The period of the slow ambient drift. */
+	final static private long DRIFT_PERIOD = 60000000000L; //60s
+	/** The silence before and after the message in the recordings. */
+	final static private long LUMINANCE_LEAD_TIME = 2000000000L; //2s
+	
+	/** The number of simulated outputs each calibration check runs. */
+	final static private int CALIBRATION_SEEDS = 200;
+	
+	/** The times the message is repeated for the conformance check, so it
+	 * is far longer than the transcriber's edge window. */
+	final static private int CONFORMANCE_REPEATS = 20;
+	/** The unit time for the conformance check in milliseconds. */
+	final static private int CONFORMANCE_UNIT_TIME = 50; //ms
+	
+	/** The signals sent before the looped heap is measured, so that 
+	 * lazy initialisation and compilation are done. */
+	final static private long HEAP_WARM_UP_SIGNALS = 2000000;
+	/** The signals sent per measured window of the looped heap. */
+	final static private long HEAP_WINDOW_SIGNALS = 500000;
+	/** The number of windows measured. */
+	final static private int HEAP_WINDOWS = 5;
+	/** The longest time to wait for signals before failing. */
+	final static private long SIGNAL_TIMEOUT = 30000; //ms
+
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// End constants
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+	public static void main(String[] args) throws Exception {
+		int failures = 0;
+		for (Check check : createChecks()) {
+			if (!matches(check.name, args)){
+				continue;
+			}
+			final String result = check.run();
+			if (result != null){
+				failures++;
+			}
+			System.out.println(String.format(Locale.US, "%-4s %-34s %s",
+					result == null ? "ok" : "FAIL", check.name,
+					result == null ? check.detail : result));
+		}
+		if (failures > 0){
+			System.exit(1);
+		}
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Checks
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** @return All checks, in order. */
+	static private List<Check> createChecks() {
+		final MorseDictionary dictionary = new InternationalMorseCode();
+		final MorseTimeline timeline = MorseTimeline.compile(dictionary, DECODE_TEXT);
+
+		List<Check> list = new ArrayList<Check>();
+		list.add(new AdaptiveDecodeCheck("adaptive: drift 12->25 WPM",
+				dictionary, timeline, 0.1, false, 0));
+		list.add(new AdaptiveDecodeCheck("adaptive: step 12->25 WPM",
+				dictionary, timeline, 0, true, MAX_STEP_ERRORS));
+		list.add(new AdaptiveDecodeCheck("adaptive: step 12->25 WPM, jitter",
+				dictionary, timeline, 0.1, true, MAX_STEP_ERRORS));
+		list.add(new AdaptiveDecodeCheck("adaptive: step 25->12 WPM",
+				dictionary, timeline, 0, true, MAX_STEP_ERRORS).reversed());
+		list.add(new AdaptiveDecodeCheck("adaptive: step 25->12 WPM, jitter",
+				dictionary, timeline, 0.1, true, MAX_STEP_ERRORS).reversed());
+		list.add(new ToneDecodeCheck("tone: 20 WPM, no noise", 
+				dictionary, TONE_TEXT, 20, Double.POSITIVE_INFINITY));
+		list.add(new ToneDecodeCheck("tone: 12 WPM, 0 dB SNR", 
+				dictionary, TONE_TEXT, 12, 0));
+		list.add(new ToneDecodeCheck("tone: 20 WPM, -3 dB SNR", 
+				dictionary, TONE_TEXT, 20, -3));
+		list.add(new ToneDecodeCheck("tone: 30 WPM, -3 dB SNR", 
+				dictionary, TONE_TEXT, 30, -3));
+		list.add(new ToneDecodeCheck("tone: 12 WPM, -6 dB SNR", 
+				dictionary, TONE_TEXT, 12, -6));
+		list.add(new ToneDecodeCheck("tone: noise only, 0 dB", 
+				dictionary, "", 20, 0));
+		list.add(new LuminanceReplayCheck("luminance: 30 fps, 6 WPM, steady", 
+				dictionary, TONE_TEXT, 30, 6, 0));
+		list.add(new LuminanceReplayCheck("luminance: 30 fps, 6 WPM, drift", 
+				dictionary, TONE_TEXT, 30, 6, 15));
+		list.add(new LuminanceReplayCheck("luminance: 60 fps, 12 WPM, drift", 
+				dictionary, TONE_TEXT, 60, 12, 15));
+		list.add(new LuminanceReplayCheck("luminance: 240 fps, 25 WPM, drift", 
+				dictionary, TONE_TEXT, 240, 25, 15));
+		list.add(new CalibrationCheck("calibrator: camera LED, 20% missed",
+				new LatencyProfile(60000000L, 20000000L), 15000000L, 0.2));
+		list.add(new CalibrationCheck("calibrator: screen, 50% missed",
+				new LatencyProfile(17000000L, 17000000L), 8000000L, 0.5));
+		list.add(new CalibrationCheck("calibrator: jitter beyond latency",
+				new LatencyProfile(2000000L, 0), 5000000L, 0.1));
+		list.add(new UnobservedCalibrationCheck("calibrator: nothing observed"));
+		list.add(new AdaptiveCostCheck("adaptive: edge cost vs window size", dictionary));
+		list.add(new ConformanceCheck("transcriber: long message timing", dictionary));
+		list.add(new LoopedHeapCheck("transcriber: looped heap is flat", dictionary));
+		return list;
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** @return <code>true</code> if no filters are given or the name
+	 * contains any of them. */
+	static private boolean matches(String name, String[] filters) {
+		if (filters.length == 0){
+			return true;
+		}
+		for (String filter : filters) {
+			if (name.contains(filter)){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** @return The number of characters of the expected text outside 
+	 * its longest common prefix and suffix with the actual text. */
+	static private int misread(String expected, String actual) {
+		final int LENGTH = Math.min(expected.length(), actual.length());
+		int prefix = 0;
+		while (prefix < LENGTH && expected.charAt(prefix) == actual.charAt(prefix)){
+			prefix++;
+		}
+		int suffix = 0;
+		while (suffix < LENGTH - prefix && 
+				expected.charAt(expected.length() - 1 - suffix) == 
+				actual.charAt(actual.length() - 1 - suffix)){
+			suffix++;
+		}
+		return expected.length() - prefix - suffix;
+	}
+
+	/** @return The number of characters inserted, deleted or substituted
+	 * to turn the expected text into the actual text. */
+	static private int editDistance(String expected, String actual) {
+		int[] previous = new int[actual.length() + 1];
+		int[] current = new int[actual.length() + 1];
+		for (int index = 0; index <= actual.length(); index++) {
+			previous[index] = index;
+		}
+		for (int eIndex = 1; eIndex <= expected.length(); eIndex++) {
+			current[0] = eIndex;
+			for (int aIndex = 1; aIndex <= actual.length(); aIndex++) {
+				final int substitute = previous[aIndex - 1] + 
+						(expected.charAt(eIndex - 1) == actual.charAt(aIndex - 1) ? 0 : 1);
+				current[aIndex] = Math.min(substitute, 
+						Math.min(previous[aIndex], current[aIndex - 1]) + 1);
+			}
+			final int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[actual.length()];
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Internal classes
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** A named check. */
+	static abstract private class Check {
+		/** The name to report. */
+		final String name;
+		/** What was measured by the last passing run. */
+		String detail = "";
+
+		Check(String name) {
+			this.name = name;
+		}
+
+		/** Runs the check.
+		 * @return <code>null</code> if passed, otherwise the reason for failing. */
+		abstract String run() throws Exception;
+	}
+
+	/** Renders a message as a tone with white noise into a WAV file, then 
+	 * decodes it through {@link WavSampleReader}, {@link ToneEdgeDetector} 
+	 * and {@link MorseSignalDecoder}. Checks the text and number of edges 
+	 * are exact, and that decoding is much faster than real time. 
+	 * The SNR is of the tone against the noise over the whole band. */
+	static private class ToneDecodeCheck extends Check {
+		final private MorseDictionary dictionary;
+		final private String text;
+		final private int wordsPerMinute;
+		/** The signal to noise ratio in dB, or infinite for no noise. */
+		final private double snr;
+		
+		ToneDecodeCheck(String name, MorseDictionary dictionary, String text,
+				int wordsPerMinute, double snr) {
+			super(name);
+			this.dictionary = dictionary;
+			this.text = text;
+			this.wordsPerMinute = wordsPerMinute;
+			this.snr = snr;
+		}
+		
+		@Override
+		String run() throws IOException, InterruptedException {
+			final int unitTime = 1200 / wordsPerMinute; //ms, PARIS
+			final File file = File.createTempFile("morsechecks", ".wav");
+			try {
+				render(file, unitTime);
+				final StringBuilder out = new StringBuilder();
+				final MorseSignalDecoder decoder = new MorseSignalDecoder(dictionary,
+						new MorseSignalDecoder.OnDecodeListener() {
+							@Override
+							public void onWordBreak() {
+								out.append(' ');
+							}
+							@Override
+							public void onCharacterDecoded(char character, int code) {
+								out.append(character == 0 ? '#' : character);
+							}
+						}, unitTime * 1000000L);
+				final int[] edges = new int[]{0};
+				final OnEdgeListener counter = new OnEdgeListener() {
+					@Override
+					public void onEdge(boolean on, long nanos) {
+						edges[0]++;
+						decoder.onEdge(on, nanos);
+					}
+				};
+				final InputStream input = new BufferedInputStream(new FileInputStream(file));
+				final long start = System.nanoTime();
+				final long samples;
+				try {
+					final WavSampleReader reader = new WavSampleReader(input);
+					samples = reader.readAll(new ToneEdgeDetector(counter, 
+							reader.getSampleRate(), TONE_FREQUENCY));
+					decoder.flush();
+				} finally {
+					input.close();
+				}
+				final double speed = ((double) samples / TONE_SAMPLE_RATE) / 
+						((System.nanoTime() - start) / 1e9);
+				
+				final String decoded = out.toString().trim();
+				final int errors = editDistance(text, decoded);
+				final int expectedEdges = MorseTimeline.compile(dictionary, text).getEdgeCount();
+				detail = String.format(Locale.US, "%d errors, %d/%d edges, %.0fx real time",
+						errors, edges[0], expectedEdges, speed);
+				if (errors > 0 || edges[0] != expectedEdges){
+					return detail + ": \"" + decoded + "\"";
+				}
+				return speed < MIN_TONE_SPEED ? detail : null;
+			} finally {
+				file.delete();
+			}
+		}
+		
+		/** Renders the message with noise into the file. */
+		private void render(File file, int unitTime) 
+				throws IOException, InterruptedException {
+			final double amplitude = TONE_GAIN * 0.8 * Short.MAX_VALUE;
+			//a sine's power is half its amplitude squared.
+			final double sigma = Double.isInfinite(snr) ? 0 : 
+					amplitude / Math.sqrt(2 * Math.pow(10, snr / 10));
+			final NoisySink sink = new NoisySink(
+					new WavFileSink(file, TONE_SAMPLE_RATE), sigma);
+			try {
+				final MorseToneRenderer renderer = new MorseToneRenderer(
+						TONE_SAMPLE_RATE, TONE_FREQUENCY, unitTime);
+				renderer.renderSilence(text.length() == 0 ? NOISE_ONLY_TIME : 
+						TONE_LEAD_TIME, sink);
+				renderer.render(new MorseEdgeStream(dictionary, text), 0, sink);
+				renderer.renderSilence(TONE_LEAD_TIME, sink);
+			} finally {
+				sink.close();
+			}
+		}
+	}
+	
+	/** Scales samples by {@link #TONE_GAIN} and adds white Gaussian noise. */
+	static private class NoisySink implements PcmSink {
+		final private PcmSink sink;
+		/** The standard deviation of the noise in sample units. */
+		final private double sigma;
+		final private Random random = new Random(1);
+		private short[] buffer = new short[0];
+		
+		NoisySink(PcmSink sink, double sigma) {
+			this.sink = sink;
+			this.sigma = sigma;
+		}
+		
+		@Override
+		public void write(short[] samples, int count) throws IOException {
+			if (buffer.length < count){
+				buffer = new short[count];
+			}
+			for (int index = 0; index < count; index++) {
+				final double value = samples[index] * TONE_GAIN + 
+						random.nextGaussian() * sigma;
+				buffer[index] = (short) Math.max(Short.MIN_VALUE, 
+						Math.min(Short.MAX_VALUE, Math.round(value)));
+			}
+			sink.write(buffer, count);
+		}
+		
+		@Override
+		public void close() throws IOException {
+			sink.close();
+		}
+	}
+	
+	/** Generates a luminance recording of a flashing light, as sampled by 
+	 * a camera at a steady frame rate, and replays it as text through 
+	 * {@link LuminanceSampleReader}, {@link LuminanceEdgeDetector} and 
+	 * {@link MorseSignalDecoder}. The recording has Gaussian noise on every 
+	 * frame, random single-frame flicker spikes up and down, and optionally 
+	 * a slow sinusoidal drift in ambient light. Checks the text and number 
+	 * of edges are exact. */
+	static private class LuminanceReplayCheck extends Check {
+		final private MorseDictionary dictionary;
+		final private String text;
+		final private int framesPerSecond;
+		final private int wordsPerMinute;
+		/** The amplitude of the ambient drift in brightness units. */
+		final private double drift;
+		
+		LuminanceReplayCheck(String name, MorseDictionary dictionary, String text,
+				int framesPerSecond, int wordsPerMinute, double drift) {
+			super(name);
+			this.dictionary = dictionary;
+			this.text = text;
+			this.framesPerSecond = framesPerSecond;
+			this.wordsPerMinute = wordsPerMinute;
+			this.drift = drift;
+		}
+		
+		@Override
+		String run() throws IOException {
+			final long unitTime = 1200000000L / wordsPerMinute; //ns, PARIS
+			final MorseTimeline timeline = MorseTimeline.compile(dictionary, text);
+			final String recording = record(timeline, unitTime);
+			
+			final StringBuilder out = new StringBuilder();
+			final MorseSignalDecoder decoder = new MorseSignalDecoder(dictionary,
+					new MorseSignalDecoder.OnDecodeListener() {
+						@Override
+						public void onWordBreak() {
+							out.append(' ');
+						}
+						@Override
+						public void onCharacterDecoded(char character, int code) {
+							out.append(character == 0 ? '#' : character);
+						}
+					}, unitTime);
+			final int[] edges = new int[]{0};
+			final OnEdgeListener counter = new OnEdgeListener() {
+				@Override
+				public void onEdge(boolean on, long nanos) {
+					edges[0]++;
+					decoder.onEdge(on, nanos);
+				}
+			};
+			final int frames = new LuminanceSampleReader(new StringReader(recording))
+					.readAll(new LuminanceEdgeDetector(counter, LUMINANCE_WINDOW_SIZE, 
+							LUMINANCE_DEBOUNCE_TIME, LUMINANCE_MIN_CONTRAST));
+			decoder.flush();
+			
+			final String decoded = out.toString().trim();
+			final int errors = editDistance(text, decoded);
+			detail = String.format(Locale.US, "%d errors, %d/%d edges over %d frames",
+					errors, edges[0], timeline.getEdgeCount(), frames);
+			if (errors > 0 || edges[0] != timeline.getEdgeCount()){
+				return detail + ": \"" + decoded + "\"";
+			}
+			return null;
+		}
+		
+		/** @return The recording of the timeline, one frame per line. */
+		private String record(MorseTimeline timeline, long unitTime) {
+			final Random random = new Random(1);
+			final long frameTime = 1000000000L / framesPerSecond;
+			final long end = LUMINANCE_LEAD_TIME * 2 + timeline.getDuration() * unitTime;
+			//an arbitrary clock origin, as camera timestamps are.
+			final long origin = 123456789012345L;
+			final StringBuilder recording = new StringBuilder("# nanos, brightness\n");
+			int edge = 0;
+			boolean on = false;
+			int sinceFlicker = FLICKER_SPACING;
+			for (long time = 0; time < end; time += frameTime) {
+				while (edge < timeline.getEdgeCount() && LUMINANCE_LEAD_TIME + 
+						timeline.getEdgeOffset(edge) * unitTime <= time){
+					on = MorseTimeline.isOnEdge(edge++);
+				}
+				double brightness = AMBIENT_LEVEL + (on ? LIGHT_LEVEL : 0) + 
+						drift * Math.sin(2 * Math.PI * time / DRIFT_PERIOD) + 
+						random.nextGaussian() * FRAME_NOISE;
+				if (++sinceFlicker >= FLICKER_SPACING && random.nextDouble() < FLICKER_CHANCE){
+					brightness += random.nextBoolean() ? FLICKER_LEVEL : -FLICKER_LEVEL;
+					sinceFlicker = 0;
+				}
+				recording.append(origin + time).append(',')
+						.append(String.format(Locale.US, "%.2f", brightness)).append('\n');
+			}
+			return recording.toString();
+		}
+	}
+	
+	/** Calibrates simulated outputs whose changes are sometimes missed, 
+	 * with {@link LatencyCalibrator} 
+	 * and {@link SimulatedLatencyProbe}. Checks each calibrated latency is 
+	 * within the jitter of the simulated one, over many seeds. */
+	static private class CalibrationCheck extends Check {
+		final private LatencyProfile profile;
+		final private long jitter;
+		final private double missRate;
+		
+		CalibrationCheck(String name, LatencyProfile profile, long jitter, 
+				double missRate) {
+			super(name);
+			this.profile = profile;
+			this.jitter = jitter;
+			this.missRate = missRate;
+		}
+		
+		@Override
+		String run() throws InterruptedException {
+			long worst = 0;
+			int unobserved = 0;
+			for (int seed = 0; seed < CALIBRATION_SEEDS; seed++) {
+				final LatencyProfile calibrated;
+				try {
+					calibrated = LatencyCalibrator.calibrate(
+							new SimulatedLatencyProbe(profile, jitter, missRate, seed));
+				} catch (IllegalStateException e){
+					//every round of an edge missed; rare but possible.
+					unobserved++;
+					continue;
+				}
+				worst = Math.max(worst, Math.max(
+						Math.abs(calibrated.getOnLatency() - profile.getOnLatency()),
+						Math.abs(calibrated.getOffLatency() - profile.getOffLatency())));
+			}
+			detail = String.format(Locale.US, 
+					"worst error %.1f ms of %.1f ms jitter, %d/%d unobserved", 
+					worst / 1e6, jitter / 1e6, unobserved, CALIBRATION_SEEDS);
+			//all rounds missed should happen about 2*(missRate^rounds) of the time.
+			final double expected = 2 * Math.pow(missRate, LatencyCalibrator.DEFAULT_ROUNDS) *
+					CALIBRATION_SEEDS;
+			return worst > jitter || unobserved > Math.max(1, expected * 4) ? detail : null;
+		}
+	}
+	
+	/** Checks calibrating an output whose changes are never observed fails
+	 * rather than returning a profile. */
+	static private class UnobservedCalibrationCheck extends Check {
+		UnobservedCalibrationCheck(String name) {
+			super(name);
+		}
+		
+		@Override
+		String run() throws InterruptedException {
+			try {
+				final LatencyProfile calibrated = LatencyCalibrator.calibrate(
+						new SimulatedLatencyProbe(LatencyProfile.NONE, 0, 1, 0));
+				return detail = "calibrated as " + calibrated;
+			} catch (IllegalStateException e){
+				detail = "refused: " + e.getMessage();
+				return null;
+			}
+		}
+	}
+	
+	/** Decodes a long, jittered message at a steady speed with 
+	 * {@link AdaptiveSignalTiming} using a small and a large window, and
+	 * checks the cost per edge does not grow with the window size. */
+	static private class AdaptiveCostCheck extends Check {
+		final private MorseDictionary dictionary;
+		
+		AdaptiveCostCheck(String name, MorseDictionary dictionary) {
+			super(name);
+			this.dictionary = dictionary;
+		}
+		
+		@Override
+		String run() {
+			final StringBuilder text = new StringBuilder();
+			for (int index = 0; index < COST_REPEATS; index++) {
+				text.append(DECODE_TEXT).append(' ');
+			}
+			final MorseTimeline timeline = MorseTimeline.compile(dictionary, text);
+			final int SIZE = timeline.getEdgeCount();
+			final long[] times = new long[SIZE];
+			final Random random = new Random(1);
+			long time = 0;
+			int previous = 0;
+			for (int index = 0; index < SIZE; index++) {
+				final int units = timeline.getEdgeOffset(index) - previous;
+				previous = timeline.getEdgeOffset(index);
+				time += (long) (units * UNIT_12WPM * (1 + 0.1 * (random.nextDouble() - 0.5)));
+				times[index] = time;
+			}
+			long small = Long.MAX_VALUE;
+			long large = Long.MAX_VALUE;
+			for (int run = 0; run < COST_RUNS; run++) {
+				small = Math.min(small, decode(times, SMALL_WINDOW));
+				large = Math.min(large, decode(times, LARGE_WINDOW));
+			}
+			final double ratio = (double) large / small;
+			detail = String.format(Locale.US, 
+					"%.1f ns/edge at %d, %.1f ns/edge at %d (x%.2f)",
+					(double) small / SIZE, SMALL_WINDOW, 
+					(double) large / SIZE, LARGE_WINDOW, ratio);
+			return ratio > MAX_WINDOW_COST_RATIO ? detail : null;
+		}
+		
+		/** @return The time taken to decode the edges in nanoseconds. */
+		private long decode(long[] times, int windowSize) {
+			final MorseSignalDecoder decoder = new MorseSignalDecoder(dictionary,
+					new MorseSignalDecoder.OnDecodeListener() {
+						@Override
+						public void onWordBreak() {}
+						@Override
+						public void onCharacterDecoded(char character, int code) {}
+					}, new AdaptiveSignalTiming(UNIT_12WPM, windowSize));
+			final int SIZE = times.length;
+			final long start = System.nanoTime();
+			for (int index = 0; index < SIZE; index++) {
+				decoder.onEdge(MorseTimeline.isOnEdge(index), times[index]);
+			}
+			decoder.flush();
+			return System.nanoTime() - start;
+		}
+	}
+	
+	/** Simulates a long message, with punctuation and repeated spaces, 
+	 * through the transcriber and checks every edge is at its ideal time
+	 * using {@link TimingConformance}. */
+	static private class ConformanceCheck extends Check {
+		final private MorseDictionary dictionary;
+		
+		ConformanceCheck(String name, MorseDictionary dictionary) {
+			super(name);
+			this.dictionary = dictionary;
+		}
+		
+		@Override
+		String run() {
+			final StringBuilder text = new StringBuilder();
+			for (int index = 0; index < CONFORMANCE_REPEATS; index++) {
+				text.append(DECODE_TEXT).append(", sos?  ");
+			}
+			final TimingConformance.Report report = TimingConformance.measure(
+					dictionary, text.toString(), CONFORMANCE_UNIT_TIME);
+			detail = String.format(Locale.US, "%d/%d edges, %.1f TU max error",
+					report.getRecordedEdgeCount(), report.getIdealEdgeCount(),
+					report.getMaxEdgeError());
+			return report.isConformant() ? null : report.toString();
+		}
+	}
+	
+	/** Loops a message on the transcriber's worker against a 
+	 * {@link VirtualSignalScheduler}, so it is sent as fast as possible, 
+	 * and checks the worker stops allocating once warmed up. Allocation that 
+	 * keeps growing with the number of loops would fill the heap of a 
+	 * message left looping. */
+	static private class LoopedHeapCheck extends Check {
+		final private MorseDictionary dictionary;
+		
+		LoopedHeapCheck(String name, MorseDictionary dictionary) {
+			super(name);
+			this.dictionary = dictionary;
+		}
+		
+		@Override
+		String run() throws InterruptedException {
+			final MorseBenchmark.AllocationCounter counter = 
+					new MorseBenchmark.AllocationCounter();
+			if (!counter.isSupported()){
+				detail = "skipped: thread allocation is not measurable on this JVM";
+				return null;
+			}
+			final SignalCounter signals = new SignalCounter();
+			final MorseTranscriber transcriber = new MorseTranscriber(dictionary, signals);
+			transcriber.setSignalScheduler(new VirtualSignalScheduler());
+			transcriber.setPadTime(0);
+			transcriber.setLoop(true);
+			transcriber.setMessage(DECODE_TEXT);
+			if (!transcriber.start()){
+				return "could not start";
+			}
+			try {
+				if (!signals.await(HEAP_WARM_UP_SIGNALS)){
+					return "stalled while warming up";
+				}
+				long allocated = counter.get(signals.threadId);
+				long growth = 0;
+				long worst = 0;
+				for (int window = 1; window <= HEAP_WINDOWS; window++) {
+					if (!signals.await(HEAP_WARM_UP_SIGNALS + window * HEAP_WINDOW_SIGNALS)){
+						return "stalled in window " + window;
+					}
+					final long next = counter.get(signals.threadId);
+					growth += next - allocated;
+					worst = Math.max(worst, next - allocated);
+					allocated = next;
+				}
+				detail = String.format(Locale.US, 
+						"%d B over %d windows of %d signals (worst %d B)",
+						growth, HEAP_WINDOWS, HEAP_WINDOW_SIGNALS, worst);
+				return growth > 0 ? detail : null;
+			} finally {
+				transcriber.cancel();
+			}
+		}
+	}
+	
+	/** Counts signal starts and records the thread sending them. */
+	static private class SignalCounter implements MorseTranscriber.OnSignalListener {
+		/** The signal starts so far. Only written by the sending thread. */
+		volatile long count = 0;
+		/** The id of the thread sending signals. */
+		volatile long threadId = -1;
+		
+		@Override
+		public void onSignalStart() {
+			if (count == 0){
+				threadId = Thread.currentThread().getId();
+			}
+			count++;
+		}
+		
+		@Override
+		public void onSignalEnd() {}
+		
+		/** Waits for the count to reach the target. 
+		 * @return <code>true</code> if reached, <code>false</code> if timed out. */
+		boolean await(long target) throws InterruptedException {
+			final long timeout = System.currentTimeMillis() + SIGNAL_TIMEOUT;
+			while (count < target){
+				if (System.currentTimeMillis() > timeout){
+					return false;
+				}
+				Thread.sleep(1);
+			}
+			return true;
+		}
+	}
+	
+	/** Keys the timeline with a changing speed into a decoder
+	 * using {@link AdaptiveSignalTiming}, seeded at the starting speed. */
+	static private class AdaptiveDecodeCheck extends Check {
+		final private MorseDictionary dictionary;
+		final private MorseTimeline timeline;
+		/** The relative jitter applied to each duration. */
+		final private double jitter;
+		/** <code>true</code> to change speed halfway,
+		 * <code>false</code> to drift across the message. */
+		final private boolean step;
+		/** The number of misread characters allowed. */
+		final private int maxErrors;
+		/** The starting unit time. */
+		private long fromUnit = UNIT_12WPM;
+		/** The ending unit time. */
+		private long toUnit = UNIT_25WPM;
+
+		AdaptiveDecodeCheck(String name, MorseDictionary dictionary,
+				MorseTimeline timeline, double jitter, boolean step, int maxErrors) {
+			super(name);
+			this.dictionary = dictionary;
+			this.timeline = timeline;
+			this.jitter = jitter;
+			this.step = step;
+			this.maxErrors = maxErrors;
+		}
+
+		/** Swaps the starting and ending speed.
+		 * @return This check for chaining. */
+		AdaptiveDecodeCheck reversed() {
+			final long unit = fromUnit;
+			fromUnit = toUnit;
+			toUnit = unit;
+			return this;
+		}
+
+		@Override
+		String run() {
+			final StringBuilder out = new StringBuilder();
+			final MorseSignalDecoder decoder = new MorseSignalDecoder(dictionary,
+					new MorseSignalDecoder.OnDecodeListener() {
+						@Override
+						public void onWordBreak() {
+							out.append(' ');
+						}
+						@Override
+						public void onCharacterDecoded(char character, int code) {
+							out.append(character == 0 ? '#' : character);
+						}
+					}, new AdaptiveSignalTiming(fromUnit));
+			final Random random = new Random(1);
+			final int SIZE = timeline.getEdgeCount();
+			long time = 0;
+			int previous = 0;
+			for (int index = 0; index < SIZE; index++) {
+				final double progress = (double) index / SIZE;
+				final double unit = step ?
+						(progress < 0.5 ? fromUnit : toUnit) :
+						fromUnit + (toUnit - fromUnit) * progress;
+				final int units = timeline.getEdgeOffset(index) - previous;
+				previous = timeline.getEdgeOffset(index);
+				time += (long) (units * unit * (1 + jitter * (random.nextDouble() - 0.5)));
+				decoder.onEdge(MorseTimeline.isOnEdge(index), time);
+			}
+			decoder.flush();
+
+			final String decoded = out.toString().trim();
+			final int errors = misread(DECODE_TEXT, decoded);
+			detail = String.format(Locale.US, "%d misread, ending at %.1f WPM",
+					errors, decoder.getWordsPerMinute());
+			return errors > maxErrors ? detail + ": \"" + decoded + "\"" : null;
+		}
+	}
+}
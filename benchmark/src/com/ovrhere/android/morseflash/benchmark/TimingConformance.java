@@ -0,0 +1,201 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.benchmark;
+
+import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary;
+import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary.MorseCharacter;
+import com.ovrhere.android.morseflash.morsecode.transcriber.MorseTranscriber;
+
+/**
+ * <p>Timing-conformance harness for {@link MorseTranscriber}. Simulates a 
+ * message through a transcriber (see {@link MorseTranscriber#simulate(long)}),
+ * records the time of every edge given to its 
+ * {@link MorseTranscriber.OnSignalListener} and compares it to the ideal 
+ * timing (1TU dots/intra-character gaps, 3TU dashes/character gaps, 
+ * 7TU word gaps) computed independently from the dictionary.</p>
+ * 
+ * <p>Usage: <code>TimingConformance.measure(dictionary, "sos sos", 100)</code>
+ * and inspect the returned {@link Report}. Run by {@link MorseChecks}.</p>
+ * 
+ * @author Jason J.
+ * @version 0.3.0-20261017
+ */
+public final class TimingConformance {
+	/** Nanoseconds per millisecond. */
+	final static private long NANOS_PER_MILLI = 1000000L;
+	
+	private TimingConformance() {}
+	
+	/**
+	 * Measures the transcriber's schedule for a message.
+	 * @param dictionary The dictionary to encode with.
+	 * @param message The message to send.
+	 * @param unitTime The unit time in milliseconds.
+	 * @return The report of the recorded edges against the ideal timing.
+	 * @throws IllegalStateException If the simulation does not complete.
+	 */
+	static public Report measure(MorseDictionary dictionary, String message, 
+			int unitTime) {
+		final int[] ideal = idealEdges(dictionary, message);
+		final long[] recorded = new long[ideal.length];
+		final int[] count = new int[]{0};
+		final MorseTranscriber transcriber = new MorseTranscriber(dictionary, null);
+		
+		transcriber.setOnSignalListener(new MorseTranscriber.OnSignalListener() {
+			@Override
+			public void onSignalStart() { record(); }
+			@Override
+			public void onSignalEnd() { record(); }
+			private void record(){
+				if (count[0] < recorded.length){
+					recorded[count[0]] = transcriber.getSignalTime();
+				}
+				count[0]++;
+			}
+		});
+		transcriber.setUnitTime(unitTime);
+		transcriber.setMessage(message);
+		if (transcriber.simulate(0) < 0 && ideal.length > 0){
+			throw new IllegalStateException("Simulation did not complete");
+		}
+		return new Report(ideal, recorded, count[0], unitTime * NANOS_PER_MILLI);
+	}
+	
+	/**
+	 * Computes the ideal edges for a message.
+	 * @param dictionary The dictionary to encode with.
+	 * @param message The message to encode.
+	 * @return The edge offsets in units from the first signal start.
+	 */
+	static public int[] idealEdges(MorseDictionary dictionary, String message) {
+		int count = 0;
+		final int LENGTH = message.length();
+		for (int index = 0; index < LENGTH; index++) {
+			MorseCharacter mchar = dictionary.encodeChar(message.charAt(index));
+			if (mchar != null){
+				count += mchar.getLength() * 2;
+			}
+		}
+		final int[] edges = new int[count];
+		int edge = 0;
+		int time = 0;
+		boolean space = false;
+		for (int index = 0; index < LENGTH; index++) {
+			final char character = message.charAt(index);
+			if (Character.isWhitespace(character)){
+				space = true;
+				continue;
+			}
+			MorseCharacter mchar = dictionary.encodeChar(character);
+			if (mchar == null){
+				continue;
+			}
+			if (edge > 0){
+				time += space ? 7 : 3;
+			}
+			space = false;
+			final int SIZE = mchar.getLength();
+			for (int pIndex = 0; pIndex < SIZE; pIndex++) {
+				if (pIndex > 0){
+					time += 1;
+				}
+				edges[edge++] = time;
+				time += mchar.isDash(pIndex) ? 3 : 1;
+				edges[edge++] = time;
+			}
+		}
+		return edges;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Internal classes
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * The results of a measurement. Errors are given in units, relative to the
+	 * first recorded signal start.
+	 * @version 0.1.0-20261017
+	 */
+	static public class Report {
+		/** The ideal edges in units. */
+		final private int[] ideal;
+		/** The recorded edges in nanoseconds. */
+		final private long[] recorded;
+		/** The number of edges actually recorded. */
+		final private int recordedCount;
+		/** The unit time in nanoseconds. */
+		final private long unitNanos;
+		
+		private Report(int[] ideal, long[] recorded, int recordedCount, long unitNanos) {
+			this.ideal = ideal;
+			this.recorded = recorded;
+			this.recordedCount = recordedCount;
+			this.unitNanos = unitNanos;
+		}
+		
+		/** @return The number of edges expected. */
+		public int getIdealEdgeCount() {
+			return ideal.length;
+		}
+		/** @return The number of edges recorded. */
+		public int getRecordedEdgeCount() {
+			return recordedCount;
+		}
+		/** @param index The edge index.
+		 * @return The recorded edge minus the ideal edge, in units. */
+		public double getEdgeError(int index) {
+			return (double) (recorded[index] - recorded[0]) / unitNanos 
+					- ideal[index];
+		}
+		/** @return The largest absolute edge error in units. */
+		public double getMaxEdgeError() {
+			double max = 0;
+			final int SIZE = Math.min(ideal.length, recordedCount);
+			for (int index = 0; index < SIZE; index++) {
+				max = Math.max(max, Math.abs(getEdgeError(index)));
+			}
+			return max;
+		}
+		/** @return The ideal time from first to last edge in units. */
+		public int getIdealAirtime() {
+			return ideal.length == 0 ? 0 : ideal[ideal.length - 1];
+		}
+		/** @return The recorded time from first to last edge in units. */
+		public double getRecordedAirtime() {
+			final int last = Math.min(ideal.length, recordedCount) - 1;
+			return last < 0 ? 0 : (double) (recorded[last] - recorded[0]) / unitNanos;
+		}
+		/** @return The recorded airtime over the ideal airtime; 
+		 * 1 when conformant. */
+		public double getAirtimeInflation() {
+			final int idealAirtime = getIdealAirtime();
+			return idealAirtime == 0 ? 1 : getRecordedAirtime() / idealAirtime;
+		}
+		/** @return <code>true</code> if every edge is where it should be,
+		 * <code>false</code> otherwise. */
+		public boolean isConformant() {
+			return recordedCount == ideal.length && getMaxEdgeError() == 0;
+		}
+		
+		@Override
+		public String toString() {
+			return getClass().getSimpleName() + "(edges: " + recordedCount + "/" + 
+					ideal.length + ", max error: " + getMaxEdgeError() + 
+					"TU, airtime: " + getRecordedAirtime() + "/" + getIdealAirtime() + 
+					"TU, inflation: " + getAirtimeInflation() + ")";
+		}
+	}
+}
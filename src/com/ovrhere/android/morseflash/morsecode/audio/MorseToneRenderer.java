@@ -0,0 +1,247 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.audio;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.ovrhere.android.morseflash.morsecode.transcriber.MorseEdgeStream;
+
+/**
+ * <p>Renders a {@link MorseEdgeStream} as a sine tone into 16-bit PCM, 
+ * sample-accurately: each edge falls on the sample nearest its offset 
+ * from the start of the message, with no scheduler jitter.</p>
+ * 
+ * <p>The tone is read from a precomputed sine table with a fixed-point phase
+ * accumulator, and each mark is shaped by a precomputed raised-cosine ramp
+ * to avoid key clicks. Samples are produced into a single fixed buffer that is 
+ * handed to the {@link PcmSink} as it fills; as edges are taken from the 
+ * stream as they are rendered, memory use does not depend on message length.
+ * Not thread safe.</p>
+ * 
+ * @author Jason J.
+ * @version 0.2.0-20261017
+ */
+public class MorseToneRenderer {
+	/** The default sample rate in Hz. */
+	final static public int DEFAULT_SAMPLE_RATE = 44100;
+	/** The default tone frequency in Hz. */
+	final static public int DEFAULT_TONE_FREQUENCY = 700;
+	/** The default ramp time in milliseconds. */
+	final static private int DEFAULT_RAMP_TIME = 5;
+	/** The default amplitude, as a fraction of full scale. */
+	final static private float DEFAULT_AMPLITUDE = 0.8f;
+	/** The size of the output buffer in samples. */
+	final static private int BUFFER_SIZE = 1024;
+	/** The number of bits indexing the sine table. */
+	final static private int SINE_TABLE_BITS = 10;
+	/** The shift from the 32 bit phase to a sine table index. */
+	final static private int PHASE_SHIFT = 32 - SINE_TABLE_BITS;
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// End constants
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** The sample rate in Hz. */
+	final private int sampleRate;
+	/** The tone frequency in Hz. */
+	final private int toneFrequency;
+	/** One cycle of the tone at full amplitude. */
+	final private short[] sineTable = new short[1 << SINE_TABLE_BITS];
+	/** The rising raised-cosine ramp, from 0 towards 1. */
+	final private float[] rampTable;
+	/** The output buffer. */
+	final private short[] buffer = new short[BUFFER_SIZE];
+	/** The phase step per sample; 2^32 is one full cycle. */
+	final private int phaseStep;
+	
+	/** The unit time in milliseconds. */
+	private int unitTime;
+	/** The current phase of the tone. Kept across marks. */
+	private int phase = 0;
+	/** The number of samples in {@link #buffer}. */
+	private int bufferCount = 0;
+	
+	/** Creates a renderer at {@value #DEFAULT_SAMPLE_RATE}Hz with a 
+	 * {@value #DEFAULT_TONE_FREQUENCY}Hz tone.
+	 * @param unitTime The unit time in milliseconds. */
+	public MorseToneRenderer(int unitTime) {
+		this(DEFAULT_SAMPLE_RATE, DEFAULT_TONE_FREQUENCY, unitTime);
+	}
+	
+	/**
+	 * @param sampleRate The sample rate in Hz. Must be > 0.
+	 * @param toneFrequency The tone frequency in Hz. Must be > 0 and below
+	 * half the sample rate.
+	 * @param unitTime The unit time in milliseconds. Must be > 0.
+	 */
+	public MorseToneRenderer(int sampleRate, int toneFrequency, int unitTime) {
+		if (sampleRate < 1){
+			throw new IllegalArgumentException("Sample rate cannot be <=0");
+		}
+		if (toneFrequency < 1 || toneFrequency * 2 >= sampleRate){
+			throw new IllegalArgumentException("Tone frequency must be within (0, sampleRate/2)");
+		}
+		setUnitTime(unitTime);
+		this.sampleRate = sampleRate;
+		this.toneFrequency = toneFrequency;
+		this.phaseStep = (int) ((((long) toneFrequency) << 32) / sampleRate);
+		
+		final double amplitude = Short.MAX_VALUE * DEFAULT_AMPLITUDE;
+		final int TABLE_SIZE = sineTable.length;
+		for (int index = 0; index < TABLE_SIZE; index++) {
+			sineTable[index] = (short) Math.round(
+					amplitude * Math.sin(2 * Math.PI * index / TABLE_SIZE));
+		}
+		
+		final int RAMP_SIZE = Math.max(1, sampleRate * DEFAULT_RAMP_TIME / 1000);
+		rampTable = new float[RAMP_SIZE];
+		for (int index = 0; index < RAMP_SIZE; index++) {
+			rampTable[index] = (float) (0.5 - 0.5 * Math.cos(Math.PI * index / RAMP_SIZE));
+		}
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessors/mutators
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** @param unitTime The unit time in milliseconds. Must be > 0. */
+	public void setUnitTime(int unitTime) {
+		if (unitTime < 1){
+			throw new IllegalArgumentException("Unit time cannot be <=0");
+		}
+		this.unitTime = unitTime;
+	}
+	
+	/** @return The unit time in milliseconds. */
+	public int getUnitTime() {
+		return unitTime;
+	}
+	
+	/** @return The sample rate in Hz. */
+	public int getSampleRate() {
+		return sampleRate;
+	}
+	
+	/** @return The tone frequency in Hz. */
+	public int getToneFrequency() {
+		return toneFrequency;
+	}
+	
+	/** @param units A duration in units. 
+	 * @return The nearest number of samples to the duration. */
+	public long unitsToSamples(long units) {
+		return (units * unitTime * sampleRate + 500) / 1000;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Action functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Renders the remaining edges of the stream followed by trailing silence. 
+	 * The thread's interrupt status is checked at each buffer.
+	 * @param edges The edges to render, taken from the start of the message.
+	 * @param trailingUnits The silence after the last signal, in units.
+	 * @param sink The sink to write to.
+	 * @return The number of samples written.
+	 * @throws IOException If the sink fails.
+	 * @throws InterruptedException If the thread is interrupted. 
+	 */
+	public long render(MorseEdgeStream edges, int trailingUnits, PcmSink sink) 
+			throws IOException, InterruptedException {
+		long position = 0;
+		while (edges.hasNext()){
+			//edges come in pairs; a signal start then its end.
+			final long on = unitsToSamples(edges.next());
+			final long off = unitsToSamples(edges.next());
+			silence(on - position, sink);
+			tone(off - on, sink);
+			position = off;
+		}
+		final long total = unitsToSamples(edges.getDuration() + trailingUnits);
+		silence(total - position, sink);
+		flush(sink);
+		return total;
+	}
+	
+	/**
+	 * Renders silence.
+	 * @param millis The length of the silence in milliseconds.
+	 * @param sink The sink to write to.
+	 * @return The number of samples written.
+	 * @throws IOException If the sink fails.
+	 * @throws InterruptedException If the thread is interrupted.
+	 */
+	public long renderSilence(long millis, PcmSink sink) 
+			throws IOException, InterruptedException {
+		final long samples = millis * sampleRate / 1000;
+		silence(samples, sink);
+		flush(sink);
+		return samples;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Appends silent samples, writing full buffers to the sink. */
+	private void silence(long samples, PcmSink sink) 
+			throws IOException, InterruptedException {
+		while (samples > 0){
+			final int chunk = (int) Math.min(samples, BUFFER_SIZE - bufferCount);
+			Arrays.fill(buffer, bufferCount, bufferCount + chunk, (short) 0);
+			bufferCount += chunk;
+			samples -= chunk;
+			if (bufferCount == BUFFER_SIZE){
+				flush(sink);
+			}
+		}
+	}
+	
+	/** Appends a ramped tone of the given length, writing full buffers to the sink. */
+	private void tone(long samples, PcmSink sink) 
+			throws IOException, InterruptedException {
+		//short marks get shorter ramps, so they still reach full amplitude.
+		final long ramp = Math.min(rampTable.length, samples / 2);
+		for (long index = 0; index < samples; index++) {
+			short sample = sineTable[phase >>> PHASE_SHIFT];
+			phase += phaseStep;
+			final long fromEnd = samples - 1 - index;
+			if (index < ramp){
+				sample = (short) (sample * rampTable[(int) (index * rampTable.length / ramp)]);
+			} else if (fromEnd < ramp){
+				sample = (short) (sample * rampTable[(int) (fromEnd * rampTable.length / ramp)]);
+			}
+			buffer[bufferCount++] = sample;
+			if (bufferCount == BUFFER_SIZE){
+				flush(sink);
+			}
+		}
+	}
+	
+	/** Writes any buffered samples to the sink. */
+	private void flush(PcmSink sink) throws IOException, InterruptedException {
+		if (Thread.interrupted()){
+			bufferCount = 0;
+			throw new InterruptedException();
+		}
+		if (bufferCount > 0){
+			sink.write(buffer, bufferCount);
+			bufferCount = 0;
+		}
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.audio;
+
+import java.io.IOException;
+
+/**
+ * A destination for mono, signed 16-bit PCM audio, such as an audio device
+ * or a {@link WavFileSink}. Buffers passed in are reused by the caller and 
+ * should not be retained.
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public interface PcmSink {
+	/** Writes samples to the sink. May block, such as for an audio device.
+	 * @param buffer The buffer of samples.
+	 * @param count The number of samples from the start of the buffer to write.
+	 * @throws IOException If the samples cannot be written.	 */
+	public void write(short[] buffer, int count) throws IOException;
+	
+	/** Finishes writing and releases the sink.
+	 * @throws IOException If the sink cannot be finished.	 */
+	public void close() throws IOException;
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.audio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * A {@link PcmSink} writing a mono, 16-bit PCM WAV file. The header sizes are 
+ * filled in on {@link #close()}, so the file is only valid once closed.
+ * Samples are converted through a fixed-size byte buffer.
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public class WavFileSink implements PcmSink {
+	/** The size of the WAV header in bytes. */
+	final static private int HEADER_SIZE = 44;
+	/** Bytes per sample. */
+	final static private int BYTES_PER_SAMPLE = 2;
+	/** The size of the byte buffer. */
+	final static private int BUFFER_SIZE = 8192;
+	
+	/** The file being written. */
+	final private RandomAccessFile file;
+	/** The sample rate in Hz. */
+	final private int sampleRate;
+	/** The conversion buffer. */
+	final private byte[] bytes = new byte[BUFFER_SIZE];
+	/** The number of data bytes written. */
+	private long dataSize = 0;
+	
+	/**
+	 * Creates or truncates the file and writes a placeholder header.
+	 * @param file The file to write.
+	 * @param sampleRate The sample rate in Hz.
+	 * @throws IOException If the file cannot be opened.
+	 */
+	public WavFileSink(File file, int sampleRate) throws IOException {
+		this.file = new RandomAccessFile(file, "rw");
+		this.sampleRate = sampleRate;
+		this.file.setLength(0);
+		writeHeader();
+	}
+	
+	@Override
+	public void write(short[] buffer, int count) throws IOException {
+		int index = 0;
+		while (index < count){
+			final int chunk = Math.min(count - index, BUFFER_SIZE / BYTES_PER_SAMPLE);
+			for (int sIndex = 0; sIndex < chunk; sIndex++) {
+				final short sample = buffer[index + sIndex];
+				//little-endian
+				bytes[sIndex * 2] = (byte) sample;
+				bytes[sIndex * 2 + 1] = (byte) (sample >> 8);
+			}
+			file.write(bytes, 0, chunk * BYTES_PER_SAMPLE);
+			index += chunk;
+		}
+		dataSize += (long) count * BYTES_PER_SAMPLE;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		try {
+			file.seek(0);
+			writeHeader();
+		} finally {
+			file.close();
+		}
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Writes the header at the current position using {@link #dataSize}. */
+	private void writeHeader() throws IOException {
+		final byte[] header = new byte[HEADER_SIZE];
+		putTag(header, 0, "RIFF");
+		putInt(header, 4, (int) (36 + dataSize));
+		putTag(header, 8, "WAVE");
+		putTag(header, 12, "fmt ");
+		putInt(header, 16, 16); //fmt chunk size
+		putShort(header, 20, 1); //PCM
+		putShort(header, 22, 1); //mono
+		putInt(header, 24, sampleRate);
+		putInt(header, 28, sampleRate * BYTES_PER_SAMPLE); //byte rate
+		putShort(header, 32, BYTES_PER_SAMPLE); //block align
+		putShort(header, 34, 16); //bits per sample
+		putTag(header, 36, "data");
+		putInt(header, 40, (int) dataSize);
+		file.write(header);
+	}
+	
+	static private void putTag(byte[] dest, int offset, String tag) {
+		for (int index = 0; index < 4; index++) {
+			dest[offset + index] = (byte) tag.charAt(index);
+		}
+	}
+	
+	static private void putInt(byte[] dest, int offset, int value) {
+		dest[offset] = (byte) value;
+		dest[offset + 1] = (byte) (value >> 8);
+		dest[offset + 2] = (byte) (value >> 16);
+		dest[offset + 3] = (byte) (value >> 24);
+	}
+	
+	static private void putShort(byte[] dest, int offset, int value) {
+		dest[offset] = (byte) value;
+		dest[offset + 1] = (byte) (value >> 8);
+	}
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.decoder;
+
+/**
+ * <p>{@link SignalTiming} that tracks the speed of a hand-keyed signal.
+ * The most recent marks and gaps are kept in bounded windows and clustered 
+ * online into two classes each: dots/dashes and symbol/character gaps.
+ * Each duration is added to its window, evicting the oldest entry once
+ * the window is full. Whenever the longest duration in the window is at least
+ * {@value #TWO_CLASS_RATIO} times the shortest, the window holds both classes
+ * and new durations are classified against the geometric midpoint of the 
+ * two; otherwise against the boundary between the current cluster means.
+ * If a class then empties or its mean falls on the wrong side of the 
+ * midpoint, as after an abrupt change in speed, the window is reseeded by 
+ * reclassifying every entry against it.</p>
+ * 
+ * <p>As marks follow a change in speed before gaps do, the boundary between
+ * symbol and character gaps is never taken as less than 3/2 of the unit 
+ * implied by the last mark. Word gaps are taken as 5/3 of the character
+ * gap, which is never taken as shorter than 3 units.</p>
+ * 
+ * <p>The unit time is estimated from both mark clusters (dashes counting
+ * as 3 units) and is bounded to between {@value #MIN_WPM} and 
+ * {@value #MAX_WPM} WPM. The class sums are kept as durations enter and 
+ * leave the window, and its shortest and longest in monotonic deques, so the 
+ * work per duration does not depend on the window size; only a reseed, 
+ * which follows a change in speed, visits the whole window.</p>
+ * 
+ * @author Jason J.
+ * @version 0.3.0-20261017
+ */
+public class AdaptiveSignalTiming implements SignalTiming {
+	/** The default number of marks and gaps to remember. */
+	final static private int DEFAULT_WINDOW_SIZE = 16;
+	/** The slowest speed tracked. */
+	final static private int MIN_WPM = 5;
+	/** The fastest speed tracked. */
+	final static private int MAX_WPM = 60;
+	/** The ratio of the longest to the shortest duration in a window 
+	 * above which it is taken to hold both classes. Dots and dashes, 
+	 * or symbol and character gaps, differ by 3. */
+	final static private int TWO_CLASS_RATIO = 2;
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// End constants
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** The starting unit time in nanoseconds. */
+	final private long initialUnitNanos;
+	/** The windowed clusters of dots (low) and dashes (high). */
+	final private Clusters marks;
+	/** The windowed clusters of symbol gaps (low) and character gaps (high). */
+	final private Clusters gaps;
+	
+	/** The current unit time estimate in nanoseconds. */
+	private long unitNanos = 0;
+	/** The unit time implied by the last mark alone in nanoseconds. */
+	private long lastMarkUnit = 0;
+	
+	/** @param initialUnitTime The expected unit time to begin with 
+	 * in nanoseconds. Must be > 0. */
+	public AdaptiveSignalTiming(long initialUnitTime) {
+		this(initialUnitTime, DEFAULT_WINDOW_SIZE);
+	}
+	
+	/** @param initialUnitTime The expected unit time to begin with 
+	 * in nanoseconds. Must be > 0. 
+	 * @param windowSize The number of recent marks, and of gaps, to 
+	 * estimate from. Must be > 0. */
+	public AdaptiveSignalTiming(long initialUnitTime, int windowSize) {
+		if (initialUnitTime < 1){
+			throw new IllegalArgumentException("Unit time cannot be <=0");
+		}
+		if (windowSize < 1){
+			throw new IllegalArgumentException("Window size cannot be <=0");
+		}
+		this.initialUnitNanos = initialUnitTime;
+		this.marks = new Clusters(windowSize);
+		this.gaps = new Clusters(windowSize);
+		this.unitNanos = clampUnit(initialUnitTime);
+		this.lastMarkUnit = unitNanos;
+	}
+	
+	@Override
+	public boolean classifyMark(long duration) {
+		final boolean isDash = marks.add(duration, 
+				duration > marks.boundary(unitNanos, unitNanos * 3));
+		updateUnit();
+		lastMarkUnit = isDash ? duration / 3 : duration;
+		return isDash;
+	}
+	
+	@Override
+	public int classifyGap(long duration, boolean complete) {
+		//the marks follow speed changes first; never wait for gaps to catch up
+		final long characterGap = Math.max(gaps.highMean(unitNanos * 3), 
+				unitNanos * 3);
+		if (duration > characterGap * 5 / 3){
+			return GAP_WORD;
+		}
+		//symbol gaps are as long as a dot, however stale the gap window
+		final long minBoundary = lastMarkUnit * 3 / 2;
+		boolean isCharacter = duration > Math.max(
+				gaps.boundary(unitNanos, unitNanos * 3), minBoundary);
+		if (complete){
+			gaps.add(duration, isCharacter);
+			isCharacter = duration > Math.max(
+					gaps.boundary(unitNanos, unitNanos * 3), minBoundary);
+		}
+		return isCharacter ? GAP_CHARACTER : GAP_SYMBOL;
+	}
+	
+	@Override
+	public long getUnitTime() {
+		return unitNanos;
+	}
+	
+	@Override
+	public double getWordsPerMinute() {
+		return (double) NANOS_PER_UNIT_AT_1WPM / unitNanos;
+	}
+	
+	@Override
+	public void reset() {
+		marks.clear();
+		gaps.clear();
+		unitNanos = clampUnit(initialUnitNanos);
+		lastMarkUnit = unitNanos;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Re-estimates the unit time from the mark clusters. */
+	private void updateUnit() {
+		final int count = marks.lowCount + marks.highCount;
+		if (count > 0){
+			//dashes are 3 units
+			unitNanos = clampUnit(
+					(marks.lowSum * 3 + marks.highSum) / (3L * count));
+		}
+	}
+	
+	/** @return The unit bounded to the tracked speeds. */
+	static private long clampUnit(long unit) {
+		return Math.max(NANOS_PER_UNIT_AT_1WPM / MAX_WPM, 
+				Math.min(NANOS_PER_UNIT_AT_1WPM / MIN_WPM, unit));
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Internal classes
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * A fixed-size ring of durations split into a low and high class, 
+	 * keeping a running sum and count per class and the window's shortest
+	 * and longest durations. The window is reseeded only once its clusters
+	 * are stale.
+	 * @version 0.3.0-20261017
+	 */
+	static private class Clusters {
+		/** The durations in the window. */
+		final private long[] durations;
+		/** Whether each duration is in the high class. */
+		final private boolean[] high;
+		/** The shortest duration in the window. */
+		final private WindowExtreme shortest;
+		/** The longest duration in the window. */
+		final private WindowExtreme longest;
+		/** The next index to write. */
+		private int head = 0;
+		/** The number of durations in the window. */
+		private int size = 0;
+		/** The number of durations ever added; the next sequence number. */
+		private long added = 0;
+		
+		private long lowSum = 0;
+		private int lowCount = 0;
+		private long highSum = 0;
+		private int highCount = 0;
+		/** The geometric midpoint of the shortest and longest durations, 
+		 * or -1 if the window holds a single class. */
+		private long split = -1;
+		
+		public Clusters(int windowSize) {
+			durations = new long[windowSize];
+			high = new boolean[windowSize];
+			shortest = new WindowExtreme(windowSize, false);
+			longest = new WindowExtreme(windowSize, true);
+		}
+		
+		/** Adds a duration, evicting the oldest if full, and reseeds 
+		 * if the clusters have gone stale.
+		 * @param duration The duration to add.
+		 * @param isHigh The class of the duration if the window 
+		 * holds only one class.
+		 * @return The class of the duration. */
+		public boolean add(long duration, boolean isHigh) {
+			if (size == durations.length){
+				remove(durations[head], high[head]);
+			} else {
+				size++;
+			}
+			final long sequence = added++;
+			final long oldest = added - size;
+			shortest.add(sequence, duration, oldest);
+			longest.add(sequence, duration, oldest);
+			
+			final long min = shortest.get();
+			final long max = longest.get();
+			if (min <= 0 || max / TWO_CLASS_RATIO < min){
+				split = -1;
+			} else {
+				split = (long) Math.sqrt((double) min * max);
+				isHigh = duration > split;
+			}
+			durations[head] = duration;
+			high[head] = isHigh;
+			head = (head + 1) % durations.length;
+			if (isHigh){
+				highSum += duration;
+				highCount++;
+			} else {
+				lowSum += duration;
+				lowCount++;
+			}
+			if (split >= 0 && isStale()){
+				reseed();
+			}
+			return isHigh;
+		}
+		
+		/** @return The duration above which the next is in the high class;
+		 * the split point if any, otherwise midway between 
+		 * the class means, or the defaults if empty. */
+		public long boundary(long defaultLow, long defaultHigh) {
+			if (split >= 0){
+				return split;
+			}
+			return (lowMean(defaultLow) + highMean(defaultHigh)) / 2;
+		}
+		
+		/** @return The low class mean or the default if empty. */
+		public long lowMean(long defaultMean) {
+			return lowCount > 0 ? lowSum / lowCount : defaultMean;
+		}
+		
+		/** @return The high class mean or the default if empty. */
+		public long highMean(long defaultMean) {
+			return highCount > 0 ? highSum / highCount : defaultMean;
+		}
+		
+		/** Empties the window. */
+		public void clear() {
+			head = size = 0;
+			added = 0;
+			lowSum = highSum = 0;
+			lowCount = highCount = 0;
+			split = -1;
+			shortest.clear();
+			longest.clear();
+		}
+		
+		/** @return <code>true</code> if a class is empty or its mean is on 
+		 * the wrong side of the split, such as after a change in speed 
+		 * moved both new classes to one side of the old means. */
+		private boolean isStale() {
+			return lowCount == 0 || highCount == 0 || 
+					lowSum / lowCount > split || highSum / highCount <= split;
+		}
+		
+		/** Reclassifies every entry against the split. */
+		private void reseed() {
+			lowSum = highSum = 0;
+			lowCount = highCount = 0;
+			for (int index = 0; index < size; index++) {
+				high[index] = durations[index] > split;
+				if (high[index]){
+					highSum += durations[index];
+					highCount++;
+				} else {
+					lowSum += durations[index];
+					lowCount++;
+				}
+			}
+		}
+		
+		/** Removes the duration from its class totals. */
+		private void remove(long duration, boolean isHigh) {
+			if (isHigh){
+				highSum -= duration;
+				highCount--;
+			} else {
+				lowSum -= duration;
+				lowCount--;
+			}
+		}
+	}
+	
+	/**
+	 * The shortest or longest duration in a sliding window, kept as a
+	 * monotonic deque of candidates so each addition is constant time,
+	 * amortised.
+	 * @version 0.1.0-20261017
+	 */
+	static private class WindowExtreme {
+		/** The sequence numbers of the candidates, oldest first. */
+		final private long[] sequences;
+		/** The durations of the candidates, from the extreme onwards. */
+		final private long[] values;
+		/** <code>true</code> to track the longest, <code>false</code> the shortest. */
+		final private boolean longest;
+		/** The index of the oldest candidate. */
+		private int first = 0;
+		/** The number of candidates. */
+		private int count = 0;
+		
+		public WindowExtreme(int windowSize, boolean longest) {
+			sequences = new long[windowSize];
+			values = new long[windowSize];
+			this.longest = longest;
+		}
+		
+		/** Adds a duration to the window.
+		 * @param sequence The sequence number of the duration.
+		 * @param duration The duration.
+		 * @param oldest The sequence number of the oldest duration still 
+		 * in the window. */
+		public void add(long sequence, long duration, long oldest) {
+			final int LENGTH = values.length;
+			while (count > 0 && sequences[first] < oldest){
+				first = (first + 1) % LENGTH;
+				count--;
+			}
+			//candidates no more extreme than the new duration can never be the extreme.
+			while (count > 0){
+				final long last = values[(first + count - 1) % LENGTH];
+				if (longest ? last > duration : last < duration){
+					break;
+				}
+				count--;
+			}
+			final int index = (first + count) % LENGTH;
+			sequences[index] = sequence;
+			values[index] = duration;
+			count++;
+		}
+		
+		/** @return The extreme of the window. Only valid once added to. */
+		public long get() {
+			return values[first];
+		}
+		
+		/** Empties the window. */
+		public void clear() {
+			first = count = 0;
+		}
+	}
+}
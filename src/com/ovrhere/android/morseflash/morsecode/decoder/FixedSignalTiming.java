@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.decoder;
+
+/**
+ * {@link SignalTiming} for a known, constant unit time. Marks longer than 
+ * {@value #DASH_THRESHOLD}TU are dashes. Gaps longer than 
+ * {@value #CHARACTER_THRESHOLD}TU end a character and longer than
+ * {@value #WORD_THRESHOLD}TU end a word.
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public class FixedSignalTiming implements SignalTiming {
+	/** The mark length in units above which a mark is a dash. */
+	final static private int DASH_THRESHOLD = 2; //units
+	/** The gap length in units above which a character has ended. */
+	final static private int CHARACTER_THRESHOLD = 2; //units
+	/** The gap length in units above which a word has ended. */
+	final static private int WORD_THRESHOLD = 5; //units
+	
+	/** The unit time in nanoseconds. */
+	final private long unitNanos;
+	
+	/** @param unitTime The unit time in nanoseconds. Must be > 0. */
+	public FixedSignalTiming(long unitTime) {
+		if (unitTime < 1){
+			throw new IllegalArgumentException("Unit time cannot be <=0");
+		}
+		this.unitNanos = unitTime;
+	}
+	
+	@Override
+	public boolean classifyMark(long duration) {
+		return duration > DASH_THRESHOLD * unitNanos;
+	}
+	
+	@Override
+	public int classifyGap(long duration, boolean complete) {
+		if (duration > WORD_THRESHOLD * unitNanos){
+			return GAP_WORD;
+		} else if (duration > CHARACTER_THRESHOLD * unitNanos){
+			return GAP_CHARACTER;
+		}
+		return GAP_SYMBOL;
+	}
+	
+	@Override
+	public long getUnitTime() {
+		return unitNanos;
+	}
+	
+	@Override
+	public double getWordsPerMinute() {
+		return (double) NANOS_PER_UNIT_AT_1WPM / unitNanos;
+	}
+	
+	@Override
+	public void reset() {}
+}
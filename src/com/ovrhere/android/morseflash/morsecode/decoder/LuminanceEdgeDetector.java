@@ -0,0 +1,243 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.decoder;
+
+/**
+ * <p>Turns a stream of (timestamp, brightness) samples, such as the mean 
+ * luminance of camera frames, into clean on/off edges for an 
+ * {@link OnEdgeListener} such as {@link MorseSignalDecoder}.</p>
+ * 
+ * <p>Samples first pass through a median-of-{@value #MEDIAN_SIZE} filter to
+ * remove single-sample spikes, delaying them by one sample. 
+ * The threshold adapts to ambient light: it is placed between the darkest
+ * and brightest samples of a sliding window, with hysteresis of 
+ * {@value #HYSTERESIS} of the range either side. Windows with less contrast 
+ * than the minimum are considered off. State changes shorter than the 
+ * debounce time are discarded as glitches; accepted edges are timestamped at 
+ * the first sample of the new state.</p>
+ * 
+ * <p>Window minimum and maximum are kept in monotonic queues over primitive 
+ * ring buffers, so each sample is amortised constant time and nothing is 
+ * allocated after construction. Not thread safe.</p>
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public class LuminanceEdgeDetector {
+	/** The default window size in samples; ~2s at 240 samples/s. */
+	final static private int DEFAULT_WINDOW_SIZE = 512;
+	/** The default debounce time in nanoseconds. */
+	final static private long DEFAULT_DEBOUNCE_TIME = 20000000L; //20ms
+	/** The default minimum contrast, in brightness units. */
+	final static private float DEFAULT_MIN_CONTRAST = 16f;
+	/** The fraction of the range either side of the midpoint to switch at. */
+	final static private float HYSTERESIS = 0.1f;
+	/** The number of samples in the median filter. */
+	final static private int MEDIAN_SIZE = 3;
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// End constants
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** The listener to send edges to. */
+	private OnEdgeListener edgeListener = null;
+	/** The time a state must persist for to be accepted, in nanoseconds. */
+	final private long debounceNanos;
+	/** The minimum range within the window to detect a signal. */
+	final private float minContrast;
+	
+	/** The last raw samples for the median filter. */
+	final private float[] medianSamples = new float[MEDIAN_SIZE];
+	/** The times of {@link #medianSamples}. */
+	final private long[] medianTimes = new long[MEDIAN_SIZE];
+	/** The number of raw samples received. */
+	private long rawCount = 0;
+	
+	/** The recent filtered samples, indexed by sequence modulo capacity. */
+	final private float[] samples;
+	/** Queue of sequences of decreasing samples; head is the window max. */
+	final private long[] maxQueue;
+	/** Queue of sequences of increasing samples; head is the window min. */
+	final private long[] minQueue;
+	private int maxHead = 0, maxSize = 0;
+	private int minHead = 0, minSize = 0;
+	/** The sequence number of the next sample. */
+	private long sequence = 0;
+	
+	/** The accepted state. */
+	private boolean signalOn = false;
+	/** Whether a state change is awaiting debounce. */
+	private boolean candidate = false;
+	/** The time of the first sample of the candidate state. */
+	private long candidateSince = 0;
+	
+	/** Creates detector with defaults of a {@value #DEFAULT_WINDOW_SIZE} 
+	 * sample window, 20ms debounce and a minimum contrast of 
+	 * {@value #DEFAULT_MIN_CONTRAST}.
+	 * @param edgeListener The listener to send edges to. */
+	public LuminanceEdgeDetector(OnEdgeListener edgeListener) {
+		this(edgeListener, DEFAULT_WINDOW_SIZE, DEFAULT_DEBOUNCE_TIME, 
+				DEFAULT_MIN_CONTRAST);
+	}
+	
+	/** 
+	 * @param edgeListener The listener to send edges to.
+	 * @param windowSize The number of samples to adapt the threshold over.
+	 * Should span several word gaps. Must be > 0.
+	 * @param debounceTime The time in nanoseconds a new state must hold for.
+	 * Must be >= 0.
+	 * @param minContrast The minimum brightness range to detect a signal.
+	 */
+	public LuminanceEdgeDetector(OnEdgeListener edgeListener, int windowSize,
+			long debounceTime, float minContrast) {
+		if (windowSize < 1){
+			throw new IllegalArgumentException("Window size cannot be <=0");
+		}
+		if (debounceTime < 0){
+			throw new IllegalArgumentException("Debounce time cannot be < 0");
+		}
+		this.edgeListener = edgeListener;
+		this.debounceNanos = debounceTime;
+		this.minContrast = minContrast;
+		this.samples = new float[windowSize];
+		this.maxQueue = new long[windowSize];
+		this.minQueue = new long[windowSize];
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessors/mutators
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** @param edgeListener The listener to send edges to. */
+	public void setOnEdgeListener(OnEdgeListener edgeListener) {
+		this.edgeListener = edgeListener;
+	}
+	
+	/** @return <code>true</code> if the signal is currently on, 
+	 * <code>false</code> otherwise. */
+	public boolean isOn() {
+		return signalOn;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Action functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Receives a sample. Samples are expected in time order.
+	 * @param nanos The time of the sample in nanoseconds.
+	 * @param brightness The brightness of the sample, in any consistent units.
+	 */
+	public void onSample(long nanos, float brightness) {
+		final int slot = (int) (rawCount++ % MEDIAN_SIZE);
+		medianSamples[slot] = brightness;
+		medianTimes[slot] = nanos;
+		if (rawCount < MEDIAN_SIZE){
+			return;
+		}
+		//the middle sample of the three is the previous one.
+		final int middle = (slot + MEDIAN_SIZE - 1) % MEDIAN_SIZE;
+		final float a = medianSamples[0], b = medianSamples[1], c = medianSamples[2];
+		onFilteredSample(medianTimes[middle], 
+				Math.max(Math.min(a, b), Math.min(Math.max(a, b), c)));
+	}
+	
+	/** Clears all samples and state. */
+	public void reset() {
+		rawCount = 0;
+		sequence = 0;
+		maxHead = maxSize = 0;
+		minHead = minSize = 0;
+		signalOn = false;
+		candidate = false;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Thresholds and debounces a filtered sample.
+	 * @param nanos The time of the sample in nanoseconds.
+	 * @param brightness The filtered brightness.
+	 */
+	private void onFilteredSample(long nanos, float brightness) {
+		push(brightness);
+		final float min = samples[index(minQueue[minHead])];
+		final float max = samples[index(maxQueue[maxHead])];
+		final float range = max - min;
+		
+		final boolean raw;
+		if (range < minContrast){
+			raw = false;
+		} else {
+			final float mid = min + range / 2;
+			final float hysteresis = range * HYSTERESIS;
+			raw = signalOn ? brightness > mid - hysteresis 
+							: brightness > mid + hysteresis;
+		}
+		
+		if (raw == signalOn){
+			candidate = false; //glitch, if any, has passed.
+			return;
+		}
+		if (!candidate){
+			candidate = true;
+			candidateSince = nanos;
+		}
+		if (nanos - candidateSince >= debounceNanos){
+			signalOn = raw;
+			candidate = false;
+			if (edgeListener != null){
+				edgeListener.onEdge(raw, candidateSince);
+			}
+		}
+	}
+	
+	/** Adds the sample to the window and updates the min/max queues. */
+	private void push(float brightness) {
+		final int capacity = samples.length;
+		final long seq = sequence++;
+		final long expired = seq - capacity;
+		samples[index(seq)] = brightness;
+		
+		//drop expired heads
+		if (maxSize > 0 && maxQueue[maxHead] <= expired){
+			maxHead = (maxHead + 1) % capacity;
+			maxSize--;
+		}
+		if (minSize > 0 && minQueue[minHead] <= expired){
+			minHead = (minHead + 1) % capacity;
+			minSize--;
+		}
+		//drop tails dominated by the new sample
+		while (maxSize > 0 && 
+				samples[index(maxQueue[(maxHead + maxSize - 1) % capacity])] <= brightness){
+			maxSize--;
+		}
+		while (minSize > 0 && 
+				samples[index(minQueue[(minHead + minSize - 1) % capacity])] >= brightness){
+			minSize--;
+		}
+		maxQueue[(maxHead + maxSize++) % capacity] = seq;
+		minQueue[(minHead + minSize++) % capacity] = seq;
+	}
+	
+	/** @return The sample index of the sequence number. */
+	private int index(long seq) {
+		return (int) (seq % samples.length);
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.decoder;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * <p>Replays recorded luminance samples into a {@link LuminanceEdgeDetector}.
+ * The recording is text with one sample per line: the timestamp in 
+ * nanoseconds and the brightness, separated by whitespace or a comma. 
+ * Blank lines and lines starting with <code>#</code> are skipped.</p>
+ * 
+ * <p>Numbers are parsed directly from a reusable character buffer, 
+ * so replay does not allocate per sample. Timestamps are parsed as exact
+ * integers, as clock readings can exceed the precision of a 
+ * <code>double</code>; any fractional part is truncated.</p>
+ * 
+ * @author Jason J.
+ * @version 0.1.1-20261017
+ */
+public class LuminanceSampleReader {
+	/** The size of the read buffer. */
+	final static private int BUFFER_SIZE = 4096;
+	
+	/** The source of the recording. */
+	final private Reader reader;
+	/** The read buffer. */
+	final private char[] buffer = new char[BUFFER_SIZE];
+	/** The read position in {@link #buffer}. */
+	private int position = 0;
+	/** The number of characters in {@link #buffer}. */
+	private int limit = 0;
+	
+	/** @param reader The source of the recording. Not closed by this object. */
+	public LuminanceSampleReader(Reader reader) {
+		this.reader = reader;
+	}
+	
+	/**
+	 * Reads all remaining samples into the detector.
+	 * @param detector The detector to receive the samples.
+	 * @return The number of samples read.
+	 * @throws IOException If the reader fails or a line cannot be parsed.
+	 */
+	public int readAll(LuminanceEdgeDetector detector) throws IOException {
+		int count = 0;
+		int next;
+		while ((next = skipToValue()) != -1){
+			final long nanos = parseTimestamp(next);
+			next = skipSeparators();
+			if (next == -1 || next == '\n'){
+				throw new IOException("Missing brightness after sample " + count);
+			}
+			final float brightness = (float) parseNumber(next);
+			detector.onSample(nanos, brightness);
+			count++;
+		}
+		return count;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** @return The next character or -1 at end of stream. */
+	private int read() throws IOException {
+		if (position == limit){
+			limit = reader.read(buffer, 0, BUFFER_SIZE);
+			position = 0;
+			if (limit <= 0){
+				limit = 0;
+				return -1;
+			}
+		}
+		return buffer[position++];
+	}
+	
+	/** Steps back one character. Only valid directly after {@link #read()}. */
+	private void unread() {
+		position--;
+	}
+	
+	/** Skips blank lines and comments.
+	 * @return The first character of the next value or -1 at end. */
+	private int skipToValue() throws IOException {
+		int c = read();
+		while (c != -1){
+			if (c == '#'){
+				while (c != -1 && c != '\n'){
+					c = read();
+				}
+			} else if (!isSeparator(c) && c != '\n' && c != '\r'){
+				return c;
+			}
+			c = read();
+		}
+		return -1;
+	}
+	
+	/** Skips separators on the current line.
+	 * @return The next character, '\n' or -1. */
+	private int skipSeparators() throws IOException {
+		int c = read();
+		while (c != -1 && (isSeparator(c) || c == '\r')){
+			c = read();
+		}
+		return c;
+	}
+	
+	/** Parses a timestamp beginning with the given character exactly,
+	 * truncating any fraction. Leaves the character after it unread. */
+	private long parseTimestamp(int first) throws IOException {
+		int c = first;
+		boolean negative = false;
+		if (c == '-'){
+			negative = true;
+			c = read();
+		}
+		long value = 0;
+		boolean digits = false;
+		while (c >= '0' && c <= '9'){
+			if (value > (Long.MAX_VALUE - (c - '0')) / 10){
+				throw new IOException("Timestamp out of range");
+			}
+			value = value * 10 + (c - '0');
+			digits = true;
+			c = read();
+		}
+		if (c == '.'){
+			c = read();
+			while (c >= '0' && c <= '9'){
+				digits = true;
+				c = read();
+			}
+		}
+		if (!digits){
+			throw new IOException("Invalid timestamp");
+		}
+		if (c != -1){
+			unread();
+		}
+		return negative ? -value : value;
+	}
+	
+	/** Parses a decimal number beginning with the given character. 
+	 * Leaves the character after the number unread. */
+	private double parseNumber(int first) throws IOException {
+		int c = first;
+		boolean negative = false;
+		if (c == '-'){
+			negative = true;
+			c = read();
+		}
+		long whole = 0;
+		boolean digits = false;
+		while (c >= '0' && c <= '9'){
+			whole = whole * 10 + (c - '0');
+			digits = true;
+			c = read();
+		}
+		double value = whole;
+		if (c == '.'){
+			double scale = 0.1;
+			c = read();
+			while (c >= '0' && c <= '9'){
+				value += (c - '0') * scale;
+				scale /= 10;
+				digits = true;
+				c = read();
+			}
+		}
+		if (!digits){
+			throw new IOException("Invalid number");
+		}
+		if (c != -1){
+			unread();
+		}
+		return negative ? -value : value;
+	}
+	
+	/** @return <code>true</code> if the character separates values. */
+	static private boolean isSeparator(int c) {
+		return c == ' ' || c == '\t' || c == ',';
+	}
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.decoder;
+
+import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary;
+import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary.MorseCharacter;
+
+/**
+ * <p>Incrementally decodes a stream of timestamped on/off edges into text
+ * by means of a {@link MorseDictionary}. Marks and gaps are classified by a 
+ * {@link SignalTiming}: either a {@link FixedSignalTiming} for a known unit 
+ * time or an {@link AdaptiveSignalTiming} to follow hand-keyed signals.</p>
+ * 
+ * <p>Characters and word breaks are sent to the {@link OnDecodeListener} as 
+ * soon as they are unambiguous: either on the next edge or, if the source is 
+ * quiet, on {@link #update(long)}. Memory use is constant regardless of 
+ * stream length and no objects are allocated per edge.</p>
+ * 
+ * <p>Not thread safe; edges are expected from one thread in time order.</p>
+ * 
+ * @author Jason J.
+ * @version 0.2.1-20261017
+ */
+public class MorseSignalDecoder implements OnEdgeListener {
+	/** The dictionary to decode with. */
+	final private MorseDictionary dictionary;
+	/** The listener for decoded text. */
+	private OnDecodeListener decodeListener = null;
+	
+	/** The classifier of marks and gaps. */
+	private SignalTiming signalTiming = null;
+	
+	/** Whether the signal is currently on. */
+	private boolean signalOn = false;
+	/** The time of the last edge in nanoseconds. */
+	private long lastEdgeNanos = 0;
+	/** Whether any edge has been received since the last reset. */
+	private boolean started = false;
+	/** The packed code of the character being received. */
+	private int code = MorseDictionary.EMPTY_CODE;
+	/** Whether the current character has more symbols than can be packed. */
+	private boolean overflow = false;
+	/** Whether a word break is owed after the last emitted character. */
+	private boolean wordBreakPending = false;
+	
+	/**
+	 * @param dictionary The dictionary used to translate morse to characters.
+	 * @param decodeListener The listener for decoded text. Can be null.
+	 * @param unitTime The fixed unit time in nanoseconds. Must be > 0.
+	 */
+	public MorseSignalDecoder(MorseDictionary dictionary, 
+			OnDecodeListener decodeListener, long unitTime) {
+		this(dictionary, decodeListener, new FixedSignalTiming(unitTime));
+	}
+	/**
+	 * @param dictionary The dictionary used to translate morse to characters.
+	 * @param decodeListener The listener for decoded text. Can be null.
+	 * @param signalTiming The classifier for marks and gaps.
+	 */
+	public MorseSignalDecoder(MorseDictionary dictionary, 
+			OnDecodeListener decodeListener, SignalTiming signalTiming) {
+		this.dictionary = dictionary;
+		this.decodeListener = decodeListener;
+		setSignalTiming(signalTiming);
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessors/mutators
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** @param decodeListener The listener for decoded text. Can be null. */
+	public void setOnDecodeListener(OnDecodeListener decodeListener) {
+		this.decodeListener = decodeListener;
+	}
+	
+	/** Sets a fixed unit time equivalent to one dot.
+	 * @param unitTime Time in nanoseconds. Must be > 0. */
+	public void setUnitTime(long unitTime) {
+		setSignalTiming(new FixedSignalTiming(unitTime));
+	}
+	
+	/** @return The current unit time in nanoseconds. */
+	public long getUnitTime() {
+		return signalTiming.getUnitTime();
+	}
+	
+	/** @param signalTiming The classifier for marks and gaps. */
+	public void setSignalTiming(SignalTiming signalTiming) {
+		if (signalTiming == null){
+			throw new NullPointerException("Signal timing cannot be null");
+		}
+		this.signalTiming = signalTiming;
+	}
+	
+	/** @return The classifier for marks and gaps. */
+	public SignalTiming getSignalTiming() {
+		return signalTiming;
+	}
+	
+	/** @return The current speed estimate in words per minute. */
+	public double getWordsPerMinute() {
+		return signalTiming.getWordsPerMinute();
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Action functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Receives an edge. Repeated edges of the same state are ignored.
+	 * @param on <code>true</code> if the signal has turned on, 
+	 * <code>false</code> if it has turned off.
+	 * @param nanos The time of the edge in nanoseconds.
+	 */
+	@Override
+	public void onEdge(boolean on, long nanos) {
+		if (!started){
+			started = true;
+			signalOn = on;
+			lastEdgeNanos = nanos;
+			return;
+		}
+		if (on == signalOn){
+			return;
+		}
+		final long duration = nanos - lastEdgeNanos;
+		if (on){
+			//a gap has ended
+			onGap(duration, true);
+		} else {
+			//a mark has ended
+			onMark(duration);
+		}
+		signalOn = on;
+		lastEdgeNanos = nanos;
+	}
+	
+	/**
+	 * Informs the decoder of the current time without an edge, so that 
+	 * characters and words can be completed during silence.
+	 * @param nanos The current time in nanoseconds.
+	 */
+	public void update(long nanos) {
+		if (started && !signalOn){
+			onGap(nanos - lastEdgeNanos, false);
+		}
+	}
+	
+	/** Completes any character in progress, such as at end of stream. */
+	public void flush() {
+		emitCharacter();
+	}
+	
+	/** Clears all state, discarding any character in progress 
+	 * and anything learnt by the signal timing. */
+	public void reset() {
+		signalTiming.reset();
+		started = false;
+		signalOn = false;
+		clearCharacter();
+		wordBreakPending = false;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Classifies a completed mark and appends it to the character.
+	 * @param duration The mark length in nanoseconds. */
+	private void onMark(long duration) {
+		if (code >>> MorseCharacter.MAX_CODE_LENGTH != 0){
+			overflow = true;
+			return;
+		}
+		final boolean dash = signalTiming.classifyMark(duration);
+		code = (code << 1) | (dash ? 1 : 0);
+	}
+	
+	/** Classifies a gap, which may be ongoing, emitting as required.
+	 * @param duration The gap length so far in nanoseconds.
+	 * @param complete Whether the gap has been ended by a mark. */
+	private void onGap(long duration, boolean complete) {
+		final int gapClass = signalTiming.classifyGap(duration, complete);
+		if (gapClass != SignalTiming.GAP_SYMBOL){
+			emitCharacter();
+		}
+		if (gapClass == SignalTiming.GAP_WORD && wordBreakPending){
+			wordBreakPending = false;
+			if (decodeListener != null){
+				decodeListener.onWordBreak();
+			}
+		}
+	}
+	
+	/** Sends the current character, if any, to the listener. */
+	private void emitCharacter() {
+		if (code == MorseDictionary.EMPTY_CODE && !overflow){
+			return;
+		}
+		final int emitCode = overflow ? 0 : code;
+		final char character = overflow ? 
+				MorseDictionary.NOT_FOUND : dictionary.decodeCode(code);
+		clearCharacter();
+		wordBreakPending = true;
+		if (decodeListener != null){
+			decodeListener.onCharacterDecoded(character, emitCode);
+		}
+	}
+	
+	/** Clears the character in progress. */
+	private void clearCharacter() {
+		code = MorseDictionary.EMPTY_CODE;
+		overflow = false;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Internal Listener interfaces
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Listens for decoded text. Called on the thread supplying edges.
+	 * @author Jason J.
+	 * @version 0.1.0-20261017
+	 */
+	public interface OnDecodeListener {
+		/** Sent when a character has been completed. 
+		 * @param character The decoded character or 
+		 * {@link MorseDictionary#NOT_FOUND} if not recognised.
+		 * @param code The packed code received 
+		 * (see {@link MorseCharacter#getCode()}), or 0 if too long to pack.	 */
+		public void onCharacterDecoded(char character, int code);
+		/** Sent when a word has been completed. */
+		public void onWordBreak();
+	}
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.decoder;
+
+/**
+ * Listens for timestamped on/off transitions of a received signal.
+ * Implemented by {@link MorseSignalDecoder} so that receive stages may feed it
+ * directly.
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public interface OnEdgeListener {
+	/** Sent when the signal changes state.
+	 * @param on <code>true</code> if the signal has turned on, 
+	 * <code>false</code> if it has turned off.
+	 * @param nanos The time of the edge in nanoseconds. */
+	public void onEdge(boolean on, long nanos);
+}
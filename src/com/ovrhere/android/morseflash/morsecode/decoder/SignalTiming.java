@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.decoder;
+
+/**
+ * Classifies mark and gap durations for the {@link MorseSignalDecoder}.
+ * Implementations may learn from the durations they classify.
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ * @see FixedSignalTiming
+ * @see AdaptiveSignalTiming
+ */
+public interface SignalTiming {
+	/** Gap class: between dots and dashes of a character. */
+	final static public int GAP_SYMBOL = 0;
+	/** Gap class: between characters. */
+	final static public int GAP_CHARACTER = 1;
+	/** Gap class: between words. */
+	final static public int GAP_WORD = 2;
+	/** Nanoseconds per unit at one word per minute ("PARIS" being 50 units). */
+	final static public long NANOS_PER_UNIT_AT_1WPM = 1200000000L;
+	
+	/** Classifies a completed mark. 
+	 * @param duration The mark length in nanoseconds.
+	 * @return <code>true</code> if a dash, <code>false</code> if a dot.	 */
+	public boolean classifyMark(long duration);
+	
+	/** Classifies a gap.
+	 * @param duration The gap length in nanoseconds.
+	 * @param complete <code>true</code> if the gap has been ended by a mark,
+	 * <code>false</code> if it may still be ongoing.
+	 * @return One of {@link #GAP_SYMBOL}, {@link #GAP_CHARACTER} or 
+	 * {@link #GAP_WORD}.	 */
+	public int classifyGap(long duration, boolean complete);
+	
+	/** @return The current unit time (dot length) in nanoseconds. */
+	public long getUnitTime();
+	
+	/** @return The current speed in words per minute. */
+	public double getWordsPerMinute();
+	
+	/** Discards anything learnt. */
+	public void reset();
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.decoder;
+
+/**
+ * <p>Detects a CW tone in 16-bit PCM audio, such as from a WAV file or a 
+ * live capture buffer, and sends its on/off edges to an 
+ * {@link OnEdgeListener} such as {@link MorseSignalDecoder}.</p>
+ * 
+ * <p>The tone level is measured by a sliding Goertzel filter: two Goertzel 
+ * filters over a window of two hops run staggered by one hop, so a level is 
+ * produced every hop from the most recent window. Levels are timestamped at
+ * the centre of their window and thresholded by a {@link LuminanceEdgeDetector},
+ * which adapts to the signal and noise levels and debounces glitches.</p>
+ * 
+ * <p>Noise alone would otherwise be thresholded as a signal whenever its
+ * level varies by more than the minimum contrast, such as before the first
+ * tone of a recording. So a second pair of filters measures a reference 
+ * frequency {@value #REFERENCE_BINS} bins from the tone, which a steady 
+ * tone does not leak into, and the noise level found there is averaged.
+ * Each tone level is reduced by {@value #NOISE_MARGIN} times that average
+ * before thresholding, so that noise levels are almost always zero.</p>
+ * 
+ * <p>Each sample costs two multiply-adds per filter and nothing is allocated 
+ * after construction, so decoding runs many times faster than real time. 
+ * Not thread safe.</p>
+ * 
+ * @author Jason J.
+ * @version 0.2.0-20261017
+ */
+public class ToneEdgeDetector {
+	/** The default hop in milliseconds. The window is twice this. */
+	final static private int DEFAULT_HOP_TIME = 5; //ms
+	/** The default number of hops to adapt the threshold over; ~2.5s. */
+	final static private int DEFAULT_WINDOW_SIZE = 512;
+	/** The default debounce time in nanoseconds. */
+	final static private long DEFAULT_DEBOUNCE_TIME = 10000000L; //10ms
+	/** The default minimum tone amplitude range to detect a signal. */
+	final static private float DEFAULT_MIN_CONTRAST = 64f;
+	/** Nanoseconds per second. */
+	final static private long NANOS_PER_SECOND = 1000000000L;
+	/** The number of staggered filters. */
+	final static private int FILTER_COUNT = 2;
+	/** The distance of the reference frequency from the tone, in filter bins. */
+	final static private int REFERENCE_BINS = 4;
+	/** The multiple of the mean noise level subtracted from tone levels. */
+	final static private float NOISE_MARGIN = 3f;
+	/** The weight of each new level in the mean noise level; ~300ms. */
+	final static private float NOISE_AVERAGING = 1f / 64;
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// End constants
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Thresholds the tone levels. */
+	final private LuminanceEdgeDetector levelDetector;
+	/** The sample rate in Hz. */
+	final private int sampleRate;
+	/** The tone frequency in Hz. */
+	final private int toneFrequency;
+	/** The Goertzel coefficient, 2cos(w). */
+	final private float coefficient;
+	/** The Goertzel coefficient of the reference frequency, or 
+	 * <code>NaN</code> if there is no room for one below the Nyquist rate. */
+	final private float referenceCoefficient;
+	/** The number of samples per hop. */
+	final private int hopSize;
+	/** The number of samples per filter window. */
+	final private int windowSize;
+	/** The scale from Goertzel magnitude to sample amplitude. */
+	final private float amplitudeScale;
+	
+	/** The filter states s[n-1]. */
+	final private float[] state1 = new float[FILTER_COUNT];
+	/** The filter states s[n-2]. */
+	final private float[] state2 = new float[FILTER_COUNT];
+	/** The reference filter states s[n-1]. */
+	final private float[] referenceState1 = new float[FILTER_COUNT];
+	/** The reference filter states s[n-2]. */
+	final private float[] referenceState2 = new float[FILTER_COUNT];
+	/** The samples each filter has accumulated; negative before it starts. */
+	final private int[] filled = new int[FILTER_COUNT];
+	/** The number of samples received. */
+	private long sampleCount = 0;
+	/** The mean noise amplitude at the reference frequency; 
+	 * negative until measured. */
+	private float noiseLevel = -1;
+	
+	/**
+	 * Creates a detector with a {@value #DEFAULT_HOP_TIME}ms hop and 
+	 * default thresholding.
+	 * @param edgeListener The listener to send edges to.
+	 * @param sampleRate The sample rate in Hz. Must be > 0.
+	 * @param toneFrequency The tone frequency in Hz. Must be > 0 and below
+	 * half the sample rate.
+	 */
+	public ToneEdgeDetector(OnEdgeListener edgeListener, int sampleRate, 
+			int toneFrequency) {
+		this(edgeListener, sampleRate, toneFrequency, DEFAULT_HOP_TIME, 
+				DEFAULT_MIN_CONTRAST);
+	}
+	
+	/**
+	 * @param edgeListener The listener to send edges to.
+	 * @param sampleRate The sample rate in Hz. Must be > 0.
+	 * @param toneFrequency The tone frequency in Hz. Must be > 0 and below
+	 * half the sample rate.
+	 * @param hopTime The time between level measurements in milliseconds; 
+	 * the filter bandwidth is about 1000/(2*hopTime)Hz. Must be > 0.
+	 * @param minContrast The minimum range of tone amplitude, in sample 
+	 * units, to detect a signal. 
+	 */
+	public ToneEdgeDetector(OnEdgeListener edgeListener, int sampleRate, 
+			int toneFrequency, int hopTime, float minContrast) {
+		if (sampleRate < 1){
+			throw new IllegalArgumentException("Sample rate cannot be <=0");
+		}
+		if (toneFrequency < 1 || toneFrequency * 2 >= sampleRate){
+			throw new IllegalArgumentException("Tone frequency must be within (0, sampleRate/2)");
+		}
+		if (hopTime < 1){
+			throw new IllegalArgumentException("Hop time cannot be <=0");
+		}
+		this.sampleRate = sampleRate;
+		this.toneFrequency = toneFrequency;
+		this.hopSize = Math.max(1, sampleRate * hopTime / 1000);
+		this.windowSize = hopSize * FILTER_COUNT;
+		this.coefficient = (float) 
+				(2 * Math.cos(2 * Math.PI * toneFrequency / sampleRate));
+		//whole bins away, so orthogonal to a steady tone over the window.
+		final double binOffset = (double) REFERENCE_BINS * sampleRate / windowSize;
+		final double reference = toneFrequency + binOffset < sampleRate / 2.0 ?
+				toneFrequency + binOffset : toneFrequency - binOffset;
+		this.referenceCoefficient = reference > 0 ? 
+				(float) (2 * Math.cos(2 * Math.PI * reference / sampleRate)) : Float.NaN;
+		this.amplitudeScale = 2f / windowSize;
+		this.levelDetector = new LuminanceEdgeDetector(edgeListener, 
+				DEFAULT_WINDOW_SIZE, DEFAULT_DEBOUNCE_TIME, minContrast);
+		reset();
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessors/mutators
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** @param edgeListener The listener to send edges to. */
+	public void setOnEdgeListener(OnEdgeListener edgeListener) {
+		levelDetector.setOnEdgeListener(edgeListener);
+	}
+	
+	/** @return The sample rate in Hz. */
+	public int getSampleRate() {
+		return sampleRate;
+	}
+	
+	/** @return The tone frequency in Hz. */
+	public int getToneFrequency() {
+		return toneFrequency;
+	}
+	
+	/** @return The time of the next sample in nanoseconds, from the first
+	 * sample since the last reset. Useful for 
+	 * {@link MorseSignalDecoder#update(long)}. */
+	public long getTime() {
+		return toNanos(sampleCount);
+	}
+	
+	/** @return <code>true</code> if the tone is currently on, 
+	 * <code>false</code> otherwise. */
+	public boolean isOn() {
+		return levelDetector.isOn();
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Action functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Receives consecutive samples. 
+	 * @param buffer The buffer of mono, signed 16-bit samples.
+	 * @param offset The index of the first sample.
+	 * @param count The number of samples.
+	 */
+	public void onSamples(short[] buffer, int offset, int count) {
+		final float coeff = coefficient;
+		final float refCoeff = referenceCoefficient;
+		final int end = offset + count;
+		for (int index = offset; index < end; index++) {
+			final float sample = buffer[index];
+			for (int filter = 0; filter < FILTER_COUNT; filter++) {
+				if (filled[filter] < 0){
+					filled[filter]++; //staggered start.
+					continue;
+				}
+				final float s = sample + coeff * state1[filter] - state2[filter];
+				state2[filter] = state1[filter];
+				state1[filter] = s;
+				final float r = sample + refCoeff * referenceState1[filter] - 
+						referenceState2[filter];
+				referenceState2[filter] = referenceState1[filter];
+				referenceState1[filter] = r;
+				if (++filled[filter] == windowSize){
+					emitLevel(filter, sampleCount + (index - offset) + 1);
+				}
+			}
+		}
+		sampleCount += count;
+	}
+	
+	/** Clears all samples and state. The next sample is at time 0. */
+	public void reset() {
+		for (int filter = 0; filter < FILTER_COUNT; filter++) {
+			state1[filter] = state2[filter] = 0;
+			referenceState1[filter] = referenceState2[filter] = 0;
+			filled[filter] = -filter * hopSize;
+		}
+		sampleCount = 0;
+		noiseLevel = -1;
+		levelDetector.reset();
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Sends the level of a completed filter window and restarts the filter.
+	 * @param filter The filter index.
+	 * @param windowEnd The sample count at the end of the window.
+	 */
+	private void emitLevel(int filter, long windowEnd) {
+		final float amplitude = 
+				amplitude(state1[filter], state2[filter], coefficient);
+		state1[filter] = state2[filter] = 0;
+		filled[filter] = 0;
+		float level = amplitude;
+		if (!Float.isNaN(referenceCoefficient)){
+			final float noise = amplitude(referenceState1[filter], 
+					referenceState2[filter], referenceCoefficient);
+			noiseLevel = noiseLevel < 0 ? noise : 
+					noiseLevel + (noise - noiseLevel) * NOISE_AVERAGING;
+			level = Math.max(0, amplitude - noiseLevel * NOISE_MARGIN);
+		}
+		referenceState1[filter] = referenceState2[filter] = 0;
+		levelDetector.onSample(toNanos(windowEnd - windowSize / 2), level);
+	}
+	
+	/** @return The amplitude of a Goertzel filter's window, in sample units. */
+	private float amplitude(float s1, float s2, float coeff) {
+		final float power = s1 * s1 + s2 * s2 - coeff * s1 * s2;
+		return (float) Math.sqrt(Math.max(0, power)) * amplitudeScale;
+	}
+	
+	/** @return The time of the sample number in nanoseconds. */
+	private long toNanos(long samples) {
+		return samples * NANOS_PER_SECOND / sampleRate;
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.decoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * <p>Reads a 16-bit PCM WAV recording into a {@link ToneEdgeDetector}. 
+ * Multi-channel recordings are mixed down to mono. Chunks other than
+ * <code>fmt </code> and <code>data</code> are skipped.</p>
+ * 
+ * <p>Samples are converted through reusable buffers, so batch decoding of
+ * long recordings does not allocate per block.</p>
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public class WavSampleReader {
+	/** The number of sample frames per block. */
+	final static private int BLOCK_SIZE = 4096;
+	/** The PCM format tag. */
+	final static private int FORMAT_PCM = 1;
+	/** The extensible format tag; accepted when 16-bit. */
+	final static private int FORMAT_EXTENSIBLE = 0xFFFE;
+	
+	/** The source of the recording. */
+	final private InputStream input;
+	/** The header buffer. */
+	final private byte[] header = new byte[16];
+	/** The sample rate in Hz, or 0 if the header is not yet read. */
+	private int sampleRate = 0;
+	/** The number of channels. */
+	private int channels = 0;
+	/** The remaining bytes of the data chunk. */
+	private long dataRemaining = 0;
+	/** The raw byte buffer; allocated once the format is known. */
+	private byte[] bytes = null;
+	/** The mono sample buffer. */
+	final private short[] samples = new short[BLOCK_SIZE];
+	
+	/** @param input The source of the recording. Not closed by this object. */
+	public WavSampleReader(InputStream input) {
+		this.input = input;
+	}
+	
+	/**
+	 * Reads the header up to the start of the sample data, if not yet read.
+	 * @return The sample rate in Hz, for creating a {@link ToneEdgeDetector}.
+	 * @throws IOException If the stream fails or is not 16-bit PCM WAV.
+	 */
+	public int getSampleRate() throws IOException {
+		if (sampleRate == 0){
+			readHeader();
+		}
+		return sampleRate;
+	}
+	
+	/**
+	 * Reads all remaining samples into the detector.
+	 * @param detector The detector to receive the samples.
+	 * @return The number of samples (per channel) read.
+	 * @throws IOException If the stream fails or is not 16-bit PCM WAV.
+	 */
+	public long readAll(ToneEdgeDetector detector) throws IOException {
+		getSampleRate();
+		final int frameSize = channels * 2;
+		long count = 0;
+		while (dataRemaining >= frameSize){
+			final int want = (int) Math.min(BLOCK_SIZE, dataRemaining / frameSize);
+			final int read = readFully(bytes, want * frameSize);
+			final int frames = read / frameSize;
+			for (int frame = 0; frame < frames; frame++) {
+				int sum = 0;
+				final int base = frame * frameSize;
+				for (int channel = 0; channel < channels; channel++) {
+					final int pos = base + channel * 2;
+					sum += (short) ((bytes[pos] & 0xFF) | (bytes[pos + 1] << 8));
+				}
+				samples[frame] = (short) (sum / channels);
+			}
+			detector.onSamples(samples, 0, frames);
+			count += frames;
+			dataRemaining -= read;
+			if (read < want * frameSize){
+				break; //truncated recording.
+			}
+		}
+		return count;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Reads chunks until the data chunk, checking the format. */
+	private void readHeader() throws IOException {
+		if (readFully(header, 12) < 12 || !isTag(header, 0, "RIFF") 
+				|| !isTag(header, 8, "WAVE")){
+			throw new IOException("Not a WAV file");
+		}
+		while (true){
+			if (readFully(header, 8) < 8){
+				throw new IOException("No data chunk");
+			}
+			long size = getInt(header, 4) & 0xFFFFFFFFL;
+			if (isTag(header, 0, "fmt ")){
+				if (size < 16 || readFully(header, 16) < 16){
+					throw new IOException("Invalid format chunk");
+				}
+				final int format = getShort(header, 0);
+				final int bits = getShort(header, 14);
+				if ((format != FORMAT_PCM && format != FORMAT_EXTENSIBLE) || bits != 16){
+					throw new IOException("Only 16-bit PCM is supported");
+				}
+				channels = getShort(header, 2);
+				sampleRate = getInt(header, 4);
+				if (channels < 1 || sampleRate < 1){
+					throw new IOException("Invalid format chunk");
+				}
+				skip(size - 16 + (size & 1));
+			} else if (isTag(header, 0, "data")){
+				if (channels == 0){
+					throw new IOException("Data before format chunk");
+				}
+				dataRemaining = size;
+				bytes = new byte[BLOCK_SIZE * channels * 2];
+				return;
+			} else {
+				skip(size + (size & 1)); //chunks are word aligned.
+			}
+		}
+	}
+	
+	/** @return The number of bytes read, less than length only at end of stream. */
+	private int readFully(byte[] dest, int length) throws IOException {
+		int total = 0;
+		while (total < length){
+			final int read = input.read(dest, total, length - total);
+			if (read < 0){
+				break;
+			}
+			total += read;
+		}
+		return total;
+	}
+	
+	/** Skips bytes, failing at end of stream. */
+	private void skip(long count) throws IOException {
+		while (count > 0){
+			final long skipped = input.skip(count);
+			if (skipped <= 0){
+				if (input.read() < 0){
+					throw new IOException("Unexpected end of file");
+				}
+				count--;
+			} else {
+				count -= skipped;
+			}
+		}
+	}
+	
+	static private boolean isTag(byte[] src, int offset, String tag) {
+		for (int index = 0; index < 4; index++) {
+			if (src[offset + index] != tag.charAt(index)){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	static private int getShort(byte[] src, int offset) {
+		return (src[offset] & 0xFF) | ((src[offset + 1] & 0xFF) << 8);
+	}
+	
+	static private int getInt(byte[] src, int offset) {
+		return getShort(src, offset) | (getShort(src, offset + 2) << 16);
+	}
+}
@@ -21,251 +21,286 @@ import java.util.Map.Entry;
  * Dictionary of International Morse Code. 
  * This dictionary is partial compliant with 
  * <a href="http://www.itu.int/rec/R-REC-M.1677-1-200910-I/">official standards</a>.
+ * Encoding is case-insensitive. Both encoding and decoding are 
+ * constant time table lookups.
  * 
  * @author Jason J.
- * @version 0.2.1-20140610
+ * @version 0.4.1-20261017
  */
 public class InternationalMorseCode implements MorseDictionary {
 	/** The list of readable characters and their morse code equivalent. */
 	static private HashMap<Character, MorseCharacter> dictionary = 
 			new  HashMap<Character, MorseCharacter>(
 				);
+	/** The size of {@link #encodeTable}; covers ASCII and Latin-1. */
+	final static private int ENCODE_TABLE_SIZE = 256;
+	/** The encode table indexed by character, with upper and lower case 
+	 * sharing entries. Built from {@link #dictionary}. */
+	final static private MorseCharacter[] encodeTable = 
+			new MorseCharacter[ENCODE_TABLE_SIZE];
+	/** The longest pattern the decode table can hold; 
+	 * must be at least the longest in {@link #dictionary}. */
+	final static private int MAX_DECODE_LENGTH = 7;
+	/** The decode table indexed by packed code 
+	 * (see {@link MorseCharacter#getCode()}). Built from {@link #dictionary}. */
+	final static private char[] decodeTable = 
+			new char[1 << (MAX_DECODE_LENGTH + 1)];
 	
 	static {
 		dictionary.put(	
 				'a',
-				new MorseCharacter(new Integer[]{DOT, DASH})
+				MorseCharacter.valueOf(DOT, DASH)
 				);
 		dictionary.put(	
 				'b',
-				new MorseCharacter(new Integer[]{DASH, DOT, DOT, DOT})
+				MorseCharacter.valueOf(DASH, DOT, DOT, DOT)
 				);
 		dictionary.put(	
 				'c',
-				new MorseCharacter(new Integer[]{DASH, DOT, DASH, DOT})
+				MorseCharacter.valueOf(DASH, DOT, DASH, DOT)
 				);
 		dictionary.put(	
 				'd',
-				new MorseCharacter(new Integer[]{DASH, DOT, DOT})
+				MorseCharacter.valueOf(DASH, DOT, DOT)
 				);
 		dictionary.put(	
 				'e',
-				new MorseCharacter(new Integer[]{DOT})
+				MorseCharacter.valueOf(DOT)
 				);
 		dictionary.put(	
 				'f',
-				new MorseCharacter(new Integer[]{DOT, DOT, DASH, DOT})
+				MorseCharacter.valueOf(DOT, DOT, DASH, DOT)
 				);
 		dictionary.put(	
 				'g',
-				new MorseCharacter(new Integer[]{DASH, DASH, DOT})
+				MorseCharacter.valueOf(DASH, DASH, DOT)
 				);
 		dictionary.put(	
 				'h',
-				new MorseCharacter(new Integer[]{DOT, DOT, DOT, DOT})
+				MorseCharacter.valueOf(DOT, DOT, DOT, DOT)
 				);
 		dictionary.put(	
 				'i',
-				new MorseCharacter(new Integer[]{DOT, DOT})
+				MorseCharacter.valueOf(DOT, DOT)
 				);
 		dictionary.put(	
 				'j',
-				new MorseCharacter(new Integer[]{DOT, DASH, DASH, DASH})
+				MorseCharacter.valueOf(DOT, DASH, DASH, DASH)
 				);
 		//10
 		
 		dictionary.put(	
 				'k',
-				new MorseCharacter(new Integer[]{DASH, DOT, DASH})
+				MorseCharacter.valueOf(DASH, DOT, DASH)
 				);
 		dictionary.put(	
 				'l',
-				new MorseCharacter(new Integer[]{DOT, DASH, DOT, DOT})
+				MorseCharacter.valueOf(DOT, DASH, DOT, DOT)
 				);
 		dictionary.put(	
 				'm',
-				new MorseCharacter(new Integer[]{DASH, DASH})
+				MorseCharacter.valueOf(DASH, DASH)
 				);
 		dictionary.put(	
 				'n',
-				new MorseCharacter(new Integer[]{DASH, DOT})
+				MorseCharacter.valueOf(DASH, DOT)
 				);
 		dictionary.put(	
 				'o',
-				new MorseCharacter(new Integer[]{DASH, DASH, DASH})
+				MorseCharacter.valueOf(DASH, DASH, DASH)
 				);		
 		dictionary.put(	
 				'p',
-				new MorseCharacter(new Integer[]{DOT, DASH, DASH, DOT})
+				MorseCharacter.valueOf(DOT, DASH, DASH, DOT)
 				);
 		dictionary.put(	
 				'q',
-				new MorseCharacter(new Integer[]{DASH, DASH, DOT, DASH})
+				MorseCharacter.valueOf(DASH, DASH, DOT, DASH)
 				);
 		dictionary.put(	
 				'r',
-				new MorseCharacter(new Integer[]{DOT, DASH, DOT})
+				MorseCharacter.valueOf(DOT, DASH, DOT)
 				);
 		dictionary.put(	
 				's',
-				new MorseCharacter(new Integer[]{DOT, DOT, DOT})
+				MorseCharacter.valueOf(DOT, DOT, DOT)
 				);
 		dictionary.put(	
 				't',
-				new MorseCharacter(new Integer[]{DASH})
+				MorseCharacter.valueOf(DASH)
 				);
 		//20
 		
 		dictionary.put(	
 				'u',
-				new MorseCharacter(new Integer[]{DOT, DOT, DASH})
+				MorseCharacter.valueOf(DOT, DOT, DASH)
 				);
 		dictionary.put(	
 				'v',
-				new MorseCharacter(new Integer[]{DOT, DOT, DOT, DASH})
+				MorseCharacter.valueOf(DOT, DOT, DOT, DASH)
 				);
 		dictionary.put(	
 				'w',
-				new MorseCharacter(new Integer[]{DOT, DASH, DASH})
+				MorseCharacter.valueOf(DOT, DASH, DASH)
 				);
 		dictionary.put(	
 				'x',
-				new MorseCharacter(new Integer[]{DASH, DOT, DOT, DASH})
+				MorseCharacter.valueOf(DASH, DOT, DOT, DASH)
 				);
 		dictionary.put(	
 				'y',
-				new MorseCharacter(new Integer[]{DASH, DOT, DASH, DASH})
+				MorseCharacter.valueOf(DASH, DOT, DASH, DASH)
 				);
 		dictionary.put(	
 				'z',
-				new MorseCharacter(new Integer[]{DASH, DASH, DOT, DOT})
+				MorseCharacter.valueOf(DASH, DASH, DOT, DOT)
 				);
 		//26
 		
 		//numbers
 		dictionary.put(	
 				'0',
-				new MorseCharacter(new Integer[]{DASH, DASH, DASH, DASH, DASH})
+				MorseCharacter.valueOf(DASH, DASH, DASH, DASH, DASH)
 				);
 		dictionary.put(	
 				'1',
-				new MorseCharacter(new Integer[]{DOT, DASH, DASH, DASH, DASH})
+				MorseCharacter.valueOf(DOT, DASH, DASH, DASH, DASH)
 				);
 		dictionary.put(	
 				'2',
-				new MorseCharacter(new Integer[]{DOT, DOT, DASH, DASH, DASH})
+				MorseCharacter.valueOf(DOT, DOT, DASH, DASH, DASH)
 				);
 		dictionary.put(	
 				'3',
-				new MorseCharacter(new Integer[]{DOT, DOT, DOT, DASH, DASH})
+				MorseCharacter.valueOf(DOT, DOT, DOT, DASH, DASH)
 				);
 		dictionary.put(	
 				'4',
-				new MorseCharacter(new Integer[]{DOT, DOT, DOT, DOT, DASH})
+				MorseCharacter.valueOf(DOT, DOT, DOT, DOT, DASH)
 				);
 		dictionary.put(	
 				'5',
-				new MorseCharacter(new Integer[]{DOT, DOT, DOT, DOT, DOT})
+				MorseCharacter.valueOf(DOT, DOT, DOT, DOT, DOT)
 				);
 		dictionary.put(	
 				'6',
-				new MorseCharacter(new Integer[]{DASH, DOT, DOT, DOT, DOT})
+				MorseCharacter.valueOf(DASH, DOT, DOT, DOT, DOT)
 				);
 		dictionary.put(	
 				'7',
-				new MorseCharacter(new Integer[]{DASH, DASH, DOT, DOT, DOT})
+				MorseCharacter.valueOf(DASH, DASH, DOT, DOT, DOT)
 				);
 		dictionary.put(	
 				'8',
-				new MorseCharacter(new Integer[]{DASH, DASH, DASH, DOT, DOT})
+				MorseCharacter.valueOf(DASH, DASH, DASH, DOT, DOT)
 				);
 		dictionary.put(	
 				'9',
-				new MorseCharacter(new Integer[]{DASH, DASH, DASH, DASH, DOT})
+				MorseCharacter.valueOf(DASH, DASH, DASH, DASH, DOT)
 				);
 		
 		//basic punctuation
 		dictionary.put(	
 				'.',
-				new MorseCharacter(new Integer[]{DOT, DASH, DOT, DASH, DOT, DASH})
+				MorseCharacter.valueOf(DOT, DASH, DOT, DASH, DOT, DASH)
 				);
 		dictionary.put(	
 				'?',
-				new MorseCharacter(new Integer[]{DOT, DOT, DASH, DASH, DOT, DOT})
+				MorseCharacter.valueOf(DOT, DOT, DASH, DASH, DOT, DOT)
 				);
 		dictionary.put(	
 				'!',
-				new MorseCharacter(new Integer[]{DASH, DOT, DASH, DOT, DASH, DASH})
+				MorseCharacter.valueOf(DASH, DOT, DASH, DOT, DASH, DASH)
 				);
 		dictionary.put(	
 				'(',
-				new MorseCharacter(new Integer[]{DASH, DOT, DASH, DASH, DOT})
+				MorseCharacter.valueOf(DASH, DOT, DASH, DASH, DOT)
 				);
 		dictionary.put(	
 				')',
-				new MorseCharacter(new Integer[]{DASH, DOT, DASH, DASH, DOT, DASH})
+				MorseCharacter.valueOf(DASH, DOT, DASH, DASH, DOT, DASH)
 				);
 		dictionary.put(	
 				':',
-				new MorseCharacter(new Integer[]{DASH, DASH, DASH, DOT, DOT, DOT})
+				MorseCharacter.valueOf(DASH, DASH, DASH, DOT, DOT, DOT)
 				);
 		dictionary.put(	
 				'=',
-				new MorseCharacter(new Integer[]{DASH, DOT, DOT, DOT, DASH})
+				MorseCharacter.valueOf(DASH, DOT, DOT, DOT, DASH)
 				);
 		dictionary.put(	
 				'-',
-				new MorseCharacter(new Integer[]{DASH, DOT, DOT, DOT, DOT, DASH})
+				MorseCharacter.valueOf(DASH, DOT, DOT, DOT, DOT, DASH)
 				);
 		dictionary.put(	
 				'"',
-				new MorseCharacter(new Integer[]{DOT, DASH, DOT, DOT, DASH, DOT})
+				MorseCharacter.valueOf(DOT, DASH, DOT, DOT, DASH, DOT)
 				);
 		dictionary.put(	
 				',',
-				new MorseCharacter(new Integer[]{DASH, DASH, DOT, DOT, DASH, DASH})
+				MorseCharacter.valueOf(DASH, DASH, DOT, DOT, DASH, DASH)
 				);
 		dictionary.put(	
 				'\'',
-				new MorseCharacter(new Integer[]{DOT, DASH, DASH, DASH, DASH, DOT})
+				MorseCharacter.valueOf(DOT, DASH, DASH, DASH, DASH, DOT)
 				);
 		dictionary.put(	
 				'/',
-				new MorseCharacter(new Integer[]{DASH, DOT, DOT, DASH, DOT})
+				MorseCharacter.valueOf(DASH, DOT, DOT, DASH, DOT)
 				);
 		dictionary.put(	
 				';',
-				new MorseCharacter(new Integer[]{DASH, DOT, DASH, DOT, DASH, DOT})
+				MorseCharacter.valueOf(DASH, DOT, DASH, DOT, DASH, DOT)
 				);
 		dictionary.put(	
 				'_',
-				new MorseCharacter(new Integer[]{DOT, DOT, DASH, DASH, DOT, DASH})
+				MorseCharacter.valueOf(DOT, DOT, DASH, DASH, DOT, DASH)
 				);
 		dictionary.put(	
 				Character.toLowerCase('@'),
-				new MorseCharacter(new Integer[]{DOT, DASH, DASH, DOT, DASH, DOT})
+				MorseCharacter.valueOf(DOT, DASH, DASH, DOT, DASH, DOT)
 				);
 		
+		//case folding is built into the table
+		for (int index = 0; index < ENCODE_TABLE_SIZE; index++) {
+			encodeTable[index] = dictionary.get(Character.toLowerCase((char) index));
+		}
+		for (Entry<Character, MorseCharacter> entry : dictionary.entrySet()) {
+			decodeTable[entry.getValue().getCode()] = entry.getKey();
+		}
 	}
 	
 	@Override
 	public Character decodeChar(MorseCharacter mcharacter) {
-		if (dictionary.containsValue(mcharacter)){
-			for (Entry<Character, MorseCharacter> entry : dictionary.entrySet()) {
-				if (entry.getValue().equals(mcharacter)){
-					return entry.getKey();
-				}
-			}
+		if (mcharacter == null){
+			return null;
+		}
+		final char character = decodeCode(mcharacter.getCode());
+		return character == NOT_FOUND ? null : Character.valueOf(character);
+	}
+	
+	@Override
+	public char decodeCode(int code) {
+		if (code > 0 && code < decodeTable.length){
+			return decodeTable[code];
 		}
-		return null;
+		return NOT_FOUND;
 	}
 
 	@Override
 	public MorseCharacter encodeChar(Character character) {
-		if (dictionary.containsKey(character)){
-			return dictionary.get(Character.toLowerCase(character));
+		if (character == null){
+			return null;
+		}
+		return encodeChar(character.charValue());
+	}
+	
+	@Override
+	public MorseCharacter encodeChar(char character) {
+		if (character < ENCODE_TABLE_SIZE){
+			return encodeTable[character];
 		}
-		return null;
+		return dictionary.get(Character.toLowerCase(character));
 	}
 
 }
@@ -16,7 +16,7 @@
 package com.ovrhere.android.morseflash.morsecode.dictionaries;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -24,13 +24,18 @@ import java.util.List;
  * to encode readable characters into a morse code character
  * and decode morse code characters to readable characters. 
  * @author Jason J. 
- * @version 0.2.0-20140513
+ * @version 0.5.0-20261017
  */
 public interface MorseDictionary {
 	/** Value representing a dot. */
 	final static public int DOT = 1;
 	/** Value representing a dash. */
 	final static public int DASH = 3;
+	/** The packed code of an empty pattern. 
+	 * @see MorseCharacter#getCode() */
+	final static public int EMPTY_CODE = 1;
+	/** The value returned by {@link #decodeCode(int)} when not found. */
+	final static public char NOT_FOUND = '\0';
 		
 	
 	/** Decodes a Morse code character into a readable character.
@@ -39,76 +44,170 @@ public interface MorseDictionary {
 	 * if not found.
 	 */
 	public Character decodeChar(MorseCharacter mCharacter);
+	/** Decodes a packed Morse code character into a readable character.
+	 * @param code The packed code, as per {@link MorseCharacter#getCode()}.
+	 * @return The readable character equivalent or {@link #NOT_FOUND}
+	 * if not found.
+	 */
+	public char decodeCode(int code);
 	/** Encodes a readable character into a Morse code character.
 	 * @param character The readable character to encode. 
 	 * @return The Morse code character equivalent or <code>null</code>
 	 * if not found.
 	 */
 	public MorseCharacter encodeChar(Character character);
+	/** Encodes a readable character into a Morse code character.
+	 * Same as {@link #encodeChar(Character)} without boxing.
+	 * @param character The readable character to encode. 
+	 * @return The Morse code character equivalent or <code>null</code>
+	 * if not found.
+	 */
+	public MorseCharacter encodeChar(char character);
 	
 	/**
-	 * <p>Container representing a single character in Morse code.
-	 * Dashes are represented as <code>true</code>, dots as <code>false</code>.
+	 * <p>Immutable container representing a single character in Morse code.
+	 * The pattern is held as a packed code in a single int 
+	 * (see {@link #getCode()}); dashes are represented as <code>1</code>
+	 * bits, dots as <code>0</code> bits.
 	 * </p>
 	 * <p>Includes the appropriate functions for comparisons. 
-	 * Suggested usage is using the 
-	 * {@link MorseCharacter.Builder} to create characters.  
+	 * Characters of up to {@value #INTERN_LENGTH} symbols are interned, 
+	 * so equal patterns share one instance. 
+	 * Suggested usage is using the {@link MorseCharacter.Builder} or 
+	 * {@link #valueOf(int...)} to create characters.  
 	 * </p>
 	 * @author Jason J.
-	 * @version 0.2.0-20140610
+	 * @version 0.4.0-20261017
 	 */
-	static public class MorseCharacter {
-		private List<Integer> pattern = new ArrayList<Integer>();
+	static public final class MorseCharacter {
+		/** The maximum number of symbols that fit into a packed code. */
+		final static public int MAX_CODE_LENGTH = 30;
+		/** The longest pattern that is interned. */
+		final static private int INTERN_LENGTH = 7;
+		/** The interned characters, indexed by code. */
+		final static private MorseCharacter[] interned = 
+				new MorseCharacter[1 << (INTERN_LENGTH + 1)];
 		
-		protected MorseCharacter() {}
-		/** Creates pattern from array
-		 * @param pattern The pattern to use for this character.
-		 * Dashes are represented as {@link MorseDictionary#DASH}, 
-		 * dots as {@link MorseDictionary#DOT}.
-		 */
-		protected MorseCharacter(Integer pattern[]){
-			this.pattern = new ArrayList<Integer>(Arrays.asList(pattern));
+		static {
+			for (int code = EMPTY_CODE; code < interned.length; code++) {
+				interned[code] = new MorseCharacter(code);
+			}
+		}
+		
+		/** The packed pattern. */
+		final private int code;
+		
+		/** @param code The packed pattern.	 */
+		private MorseCharacter(int code) {
+			this.code = code;
 		}
 		
-		/** Sets pattern.
+		/** Returns the character for the given packed code.
+		 * @param code The packed code, as per {@link #getCode()}.
+		 * @return The (possibly shared) character.
+		 * @throws IllegalArgumentException If the code is not valid.	 */
+		static public MorseCharacter fromCode(int code){
+			if (code < EMPTY_CODE){
+				throw new IllegalArgumentException("Invalid code: " + code);
+			}
+			if (code < interned.length){
+				return interned[code];
+			}
+			return new MorseCharacter(code);
+		}
+		
+		/** Returns the character for the given pattern.
 		 * @param pattern The pattern to use for this character.
 		 * Dashes are represented as {@link MorseDictionary#DASH}, 
-		 * dots as {@link MorseDictionary#DOT}.
-		 */
-		protected void setPattern(List<Integer> pattern ){
-			this.pattern = pattern;
+		 * dots as {@link MorseDictionary#DOT}. Other values are ignored.
+		 * @return The (possibly shared) character.
+		 * @throws IllegalArgumentException If longer than 
+		 * {@value #MAX_CODE_LENGTH} symbols.	 */
+		static public MorseCharacter valueOf(int... pattern){
+			Builder builder = new Builder();
+			for (int symbol : pattern) {
+				if (symbol == DASH){
+					builder.addDash();
+				} else if (symbol == DOT){
+					builder.addDot();
+				}
+			}
+			return builder.create();
+		}
+		
+		/** @return The number of symbols in the pattern. */
+		public int getLength(){
+			return 31 - Integer.numberOfLeadingZeros(code);
+		}
+		
+		/** @param index The index of the symbol, from 0 to 
+		 * {@link #getLength()} - 1.
+		 * @return <code>true</code> if the symbol is a dash, 
+		 * <code>false</code> if a dot.		 */
+		public boolean isDash(int index){
+			return ((code >>> (getLength() - 1 - index)) & 1) == 1;
+		}
+		
+		/** @param index The index of the symbol, from 0 to 
+		 * {@link #getLength()} - 1.
+		 * @return Either {@link MorseDictionary#DASH} or 
+		 * {@link MorseDictionary#DOT}.		 */
+		public int getSymbol(int index){
+			return isDash(index) ? DASH : DOT;
 		}
-	
 				
 		/**  
-		 * @return A list representing the pattern of the morse character.
+		 * Note that this creates a new list on each call; consider using
+		 * {@link #getLength()} and {@link #getSymbol(int)} instead.
+		 * @return An unmodifiable list representing the pattern of 
+		 * the morse character.
 		 * Dashes are represented as {@link MorseDictionary#DASH}, 
 		 * dots as {@link MorseDictionary#DOT}.
 		 */
 		public List<Integer> getPattern(){
-			return this.pattern;
+			final int SIZE = getLength();
+			List<Integer> pattern = new ArrayList<Integer>(SIZE);
+			for (int index = 0; index < SIZE; index++) {
+				pattern.add(getSymbol(index));
+			}
+			return Collections.unmodifiableList(pattern);
+		}
+		
+		/**
+		 * Returns the pattern packed into a single int: a leading marker bit 
+		 * followed by one bit per symbol, first symbol most significant, 
+		 * <code>1</code> for a dash and <code>0</code> for a dot.
+		 * For example, ".-" is <code>0b101</code> and the empty pattern is 
+		 * {@link MorseDictionary#EMPTY_CODE}.
+		 * @return The packed code.
+		 */
+		public int getCode(){
+			return code;
 		}
 		
 		/**
 		 * @author Jason J.
-		 * @version 0.3.0-20140610
+		 * @version 0.4.0-20261017
 		 */
 		static public class Builder {
-			private List<Integer> bpattern = new ArrayList<Integer>();
+			/** The packed pattern so far. */
+			private int bcode = EMPTY_CODE;
 			/** Creates a {@link MorseCharacter} with the arguments supplied to  
-			 * the function. Note that this uses string manipulation;
-			 *  using {@link #addDash()} and {@link #addDot()} are more efficient in building.
+			 * the function. 
 			 * @param pattern A pattern of dashes('-' or '_') and dots ('.'). 
 			 * Note that any other character will be ignored.
 			 * @return {@link MorseCharacter}
+			 * @throws IllegalArgumentException If longer than 
+			 * {@value MorseCharacter#MAX_CODE_LENGTH} symbols.
 			 */
 			static public MorseCharacter create(String pattern){
-				String[] symbols = pattern.split("");
 				Builder builder = new Builder();
-				for (String string : symbols) {
-					if (string.equals("-") || string.equals("_")){
+				final int LENGTH = pattern.length();
+				for (int index = 0; index < LENGTH; index++) {
+					final char symbol = pattern.charAt(index);
+					if (symbol == '-' || symbol == '_'){
 						builder.addDash();
-					} else if (string.equals(".")) {
+					} else if (symbol == '.') {
 						builder.addDot();
 					}
 				}
@@ -119,20 +218,27 @@ public interface MorseDictionary {
 			 * @return {@link MorseCharacter} 
 			 */
 			public MorseCharacter create(){
-				MorseCharacter morseChar = new MorseCharacter();
-				morseChar.setPattern(bpattern);
-				return morseChar;
+				return fromCode(bcode);
 			}
 			/** Adds a dot to the morse code pattern. 	
-			 * @return MorseCharBuilder for chaining.		 */
+			 * @return MorseCharBuilder for chaining.
+			 * @throws IllegalArgumentException If the pattern is full. */
 			public Builder addDot(){
-				bpattern.add(DOT);
-				return this;
+				return append(0);
 			}
 			/** Adds a dash to the morse code pattern. 	
-			 * @return MorseCharBuilder for chaining.		 */
+			 * @return MorseCharBuilder for chaining.
+			 * @throws IllegalArgumentException If the pattern is full. */
 			public Builder addDash(){
-				bpattern.add(DASH);
+				return append(1);
+			}
+			/** Appends the bit to the code. */
+			private Builder append(int bit){
+				if (bcode >>> MAX_CODE_LENGTH != 0){
+					throw new IllegalArgumentException(
+							"Pattern cannot exceed " + MAX_CODE_LENGTH + " symbols");
+				}
+				bcode = (bcode << 1) | bit;
 				return this;
 			}
 		}
@@ -144,13 +250,9 @@ public interface MorseDictionary {
 		@Override
 		public String toString() {
 			StringBuilder sBuilder = new StringBuilder();
-			final int SIZE = pattern.size();
+			final int SIZE = getLength();
 			for (int index = 0; index < SIZE; index++) {
-				if (pattern.get(index).equals(DOT)){
-					sBuilder.append(".");
-				} else if (pattern.get(index).equals(DASH)){
-					sBuilder.append("-");
-				}				
+				sBuilder.append(isDash(index) ? '-' : '.');
 			}
 			return this.getClass().getName() + 
 					"('"+sBuilder.toString()+"')"; //the character as a morse string. 
@@ -158,28 +260,21 @@ public interface MorseDictionary {
 		
 		@Override
 		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
 			if (obj == null) {
 		        return false;
 		    }
 		    if (getClass() != obj.getClass()) {
 		        return false;
 		    }
-			final MorseCharacter morseChar = (MorseCharacter) obj;
-			final int SIZE = pattern.size();
-			if (SIZE != morseChar.pattern.size()){
-				return false;
-			}
-			for (int index = 0; index < SIZE; index++) {
-				if (morseChar.pattern.get(index) != pattern.get(index)){
-					return false;
-				}
-			}
-			return true;
+			return code == ((MorseCharacter) obj).code;
 		}
 		
 		@Override
 		public int hashCode() {
-			return pattern.hashCode();
+			return code;
 		}
 	}	
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.notation;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary;
+import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary.MorseCharacter;
+
+/**
+ * <p>Converts written morse notation, such as <code>"... --- ... / .-"</code>,
+ * back into text. Dots are <code>.</code> and dashes <code>-</code> or 
+ * <code>_</code>. Characters are separated by whitespace; words by 
+ * <code>/</code>, a line break or two or more whitespace characters. 
+ * Any other character also ends the current morse character.</p>
+ * 
+ * <p>The input is walked once, building each character's packed code inline 
+ * for a {@link MorseDictionary#decodeCode(int)} table lookup, so nothing
+ * is allocated per character. Codes not in the dictionary, or longer than
+ * {@value MorseCharacter#MAX_CODE_LENGTH} symbols, are skipped and counted, 
+ * and reported to the listener if set. Not thread safe.</p>
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public class NotationDecoder {
+	/** The separator written between words. */
+	final static public char WORD_SEPARATOR = ' ';
+	/** The size of the read buffer for readers. */
+	final static private int READ_BUFFER_SIZE = 4096;
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// End constants
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** The dictionary to decode with. */
+	final private MorseDictionary dictionary;
+	/** The read buffer, created on first use. */
+	private char[] readBuffer = null;
+	/** The listener for unknown codes, if any. */
+	private OnUnknownCodeListener unknownListener = null;
+	
+	/** The packed code of the current character. */
+	private int code = MorseDictionary.EMPTY_CODE;
+	/** Whether the current character is too long to pack. */
+	private boolean overflow = false;
+	/** The index of the first symbol of the current character. */
+	private long codeStart = 0;
+	/** The number of whitespace characters since the last character. */
+	private int gapLength = 0;
+	/** Whether a word break comes before the next character. */
+	private boolean wordBreakPending = false;
+	/** Whether a character has been written in the current decoding. */
+	private boolean started = false;
+	/** The index of the next input character in the current decoding. */
+	private long index = 0;
+	/** The number of unknown codes in the current decoding. */
+	private int unknownCount = 0;
+	
+	/** @param dictionary The dictionary used to translate morse into characters. */
+	public NotationDecoder(MorseDictionary dictionary) {
+		this.dictionary = dictionary;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessors/mutators
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** @param listener The listener for unknown codes or <code>null</code>. */
+	public void setOnUnknownCodeListener(OnUnknownCodeListener listener) {
+		this.unknownListener = listener;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Action functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Decodes notation into text.
+	 * @param notation The notation to decode.
+	 * @param out The destination of the text, such as a 
+	 * {@link StringBuilder} or {@link java.io.Writer}.
+	 * @return The number of unknown codes skipped.
+	 * @throws IOException If the destination fails.
+	 */
+	public int decode(CharSequence notation, Appendable out) throws IOException {
+		begin();
+		final int LENGTH = notation.length();
+		for (int position = 0; position < LENGTH; position++) {
+			decodeChar(notation.charAt(position), out);
+		}
+		endCharacter(out);
+		return unknownCount;
+	}
+	
+	/**
+	 * Decodes notation from a reader into text, through a fixed buffer.
+	 * @param notation The notation to decode. Not closed by this object.
+	 * @param out The destination of the text, such as a {@link java.io.Writer}.
+	 * @return The number of unknown codes skipped.
+	 * @throws IOException If the reader or destination fails.
+	 */
+	public int decode(Reader notation, Appendable out) throws IOException {
+		if (readBuffer == null){
+			readBuffer = new char[READ_BUFFER_SIZE];
+		}
+		final char[] buffer = readBuffer;
+		begin();
+		int read;
+		while ((read = notation.read(buffer, 0, READ_BUFFER_SIZE)) >= 0){
+			for (int position = 0; position < read; position++) {
+				decodeChar(buffer[position], out);
+			}
+		}
+		endCharacter(out);
+		return unknownCount;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Resets state for a new decoding. */
+	private void begin() {
+		code = MorseDictionary.EMPTY_CODE;
+		overflow = false;
+		gapLength = 0;
+		wordBreakPending = false;
+		started = false;
+		index = 0;
+		unknownCount = 0;
+	}
+	
+	/** Processes a single character of notation. */
+	private void decodeChar(char character, Appendable out) throws IOException {
+		final long position = index++;
+		switch (character) {
+		case '.':
+			addSymbol(0, position);
+			return;
+		case '-':
+		case '_':
+			addSymbol(1, position);
+			return;
+		case '/':
+		case '\n':
+		case '\r':
+			endCharacter(out);
+			wordBreakPending = true;
+			return;
+		default:
+			endCharacter(out);
+			if (Character.isWhitespace(character) && ++gapLength > 1){
+				wordBreakPending = true;
+			}
+		}
+	}
+	
+	/** Adds a symbol to the current character. 
+	 * @param bit 1 for a dash, 0 for a dot.
+	 * @param position The index of the symbol. */
+	private void addSymbol(int bit, long position) {
+		if (code == MorseDictionary.EMPTY_CODE && !overflow){
+			codeStart = position;
+		}
+		if (code >>> MorseCharacter.MAX_CODE_LENGTH != 0){
+			overflow = true;
+		} else {
+			code = (code << 1) | bit;
+		}
+	}
+	
+	/** Writes the current character, if any, preceded by any word break. */
+	private void endCharacter(Appendable out) throws IOException {
+		if (code == MorseDictionary.EMPTY_CODE && !overflow){
+			return;
+		}
+		gapLength = 0;
+		final char decoded = overflow ? MorseDictionary.NOT_FOUND 
+										: dictionary.decodeCode(code);
+		if (decoded == MorseDictionary.NOT_FOUND){
+			unknownCount++;
+			if (unknownListener != null){
+				unknownListener.onUnknownCode(overflow ? 0 : code, codeStart);
+			}
+		} else {
+			if (started && wordBreakPending){
+				out.append(WORD_SEPARATOR);
+			}
+			out.append(decoded);
+			started = true;
+			wordBreakPending = false;
+		}
+		code = MorseDictionary.EMPTY_CODE;
+		overflow = false;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Internal interfaces
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Notified of morse characters that cannot be decoded. 
+	 * @version 0.1.0-20261017 */
+	public interface OnUnknownCodeListener {
+		/** @param code The packed code, as per {@link MorseCharacter#getCode()},
+		 * or 0 if too long to pack.
+		 * @param index The index of the character's first symbol in the notation. */
+		public void onUnknownCode(int code, long index);
+	}
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.notation;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary;
+import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary.MorseCharacter;
+
+/**
+ * <p>Converts text into written morse notation, such as 
+ * <code>"... --- ... / .-"</code> for "sos a". Characters are separated by
+ * {@value #CHARACTER_SEPARATOR} and words by <code>"{@value #WORD_SEPARATOR}"</code>;
+ * whitespace in the text separates words.</p>
+ * 
+ * <p>The notation of every character below {@value #TABLE_SIZE} is 
+ * precomputed, so encoding appends existing strings and allocates nothing 
+ * per character. Unsupported characters are skipped and counted, and 
+ * reported to the listener if set. Not thread safe.</p>
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public class NotationEncoder {
+	/** The symbol written for a dot. */
+	final static public char DOT = '.';
+	/** The symbol written for a dash. */
+	final static public char DASH = '-';
+	/** The separator between characters. */
+	final static public char CHARACTER_SEPARATOR = ' ';
+	/** The separator between words. */
+	final static public String WORD_SEPARATOR = " / ";
+	/** The number of characters with precomputed notation. */
+	final static private int TABLE_SIZE = 256;
+	/** The size of the read buffer for readers. */
+	final static private int READ_BUFFER_SIZE = 4096;
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// End constants
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** The dictionary to encode with. */
+	final private MorseDictionary dictionary;
+	/** The notation of each character, or <code>null</code> if unsupported. */
+	final private String[] notationTable = new String[TABLE_SIZE];
+	/** The read buffer, created on first use. */
+	private char[] readBuffer = null;
+	/** The listener for unsupported characters, if any. */
+	private OnUnsupportedCharacterListener unsupportedListener = null;
+	
+	/** Whether a character has been written in the current encoding. */
+	private boolean started = false;
+	/** Whether a word break comes before the next character. */
+	private boolean wordBreakPending = false;
+	/** The index of the next character in the current encoding. */
+	private long index = 0;
+	/** The number of unsupported characters in the current encoding. */
+	private int unsupportedCount = 0;
+	
+	/** @param dictionary The dictionary used to translate characters into morse. */
+	public NotationEncoder(MorseDictionary dictionary) {
+		this.dictionary = dictionary;
+		StringBuilder builder = new StringBuilder(MorseCharacter.MAX_CODE_LENGTH);
+		for (int character = 0; character < TABLE_SIZE; character++) {
+			final MorseCharacter mchar = dictionary.encodeChar((char) character);
+			if (mchar == null || mchar.getLength() == 0){
+				continue;
+			}
+			builder.setLength(0);
+			final int SIZE = mchar.getLength();
+			for (int symbol = 0; symbol < SIZE; symbol++) {
+				builder.append(mchar.isDash(symbol) ? DASH : DOT);
+			}
+			notationTable[character] = builder.toString();
+		}
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessors/mutators
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** @param listener The listener for unsupported characters 
+	 * or <code>null</code>. */
+	public void setOnUnsupportedCharacterListener(
+			OnUnsupportedCharacterListener listener) {
+		this.unsupportedListener = listener;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Action functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Encodes text into notation.
+	 * @param text The text to encode.
+	 * @param out The destination of the notation, such as a 
+	 * {@link StringBuilder} or {@link java.io.Writer}.
+	 * @return The number of unsupported characters skipped.
+	 * @throws IOException If the destination fails.
+	 */
+	public int encode(CharSequence text, Appendable out) throws IOException {
+		begin();
+		final int LENGTH = text.length();
+		for (int position = 0; position < LENGTH; position++) {
+			encodeChar(text.charAt(position), out);
+		}
+		return unsupportedCount;
+	}
+	
+	/**
+	 * Encodes text from a reader into notation, through a fixed buffer.
+	 * @param text The text to encode. Not closed by this object.
+	 * @param out The destination of the notation, such as a 
+	 * {@link java.io.Writer}.
+	 * @return The number of unsupported characters skipped.
+	 * @throws IOException If the reader or destination fails.
+	 */
+	public int encode(Reader text, Appendable out) throws IOException {
+		if (readBuffer == null){
+			readBuffer = new char[READ_BUFFER_SIZE];
+		}
+		final char[] buffer = readBuffer;
+		begin();
+		int read;
+		while ((read = text.read(buffer, 0, READ_BUFFER_SIZE)) >= 0){
+			for (int position = 0; position < read; position++) {
+				encodeChar(buffer[position], out);
+			}
+		}
+		return unsupportedCount;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Resets state for a new encoding. */
+	private void begin() {
+		started = false;
+		wordBreakPending = false;
+		index = 0;
+		unsupportedCount = 0;
+	}
+	
+	/** Encodes a single character, writing any separator before it. */
+	private void encodeChar(char character, Appendable out) throws IOException {
+		final long position = index++;
+		if (character < TABLE_SIZE){
+			final String notation = notationTable[character];
+			if (notation != null){
+				separate(out);
+				out.append(notation);
+				return;
+			}
+		} else {
+			final MorseCharacter mchar = dictionary.encodeChar(character);
+			if (mchar != null && mchar.getLength() > 0){
+				separate(out);
+				final int SIZE = mchar.getLength();
+				for (int symbol = 0; symbol < SIZE; symbol++) {
+					out.append(mchar.isDash(symbol) ? DASH : DOT);
+				}
+				return;
+			}
+		}
+		if (Character.isWhitespace(character)){
+			wordBreakPending = true;
+			return;
+		}
+		unsupportedCount++;
+		if (unsupportedListener != null){
+			unsupportedListener.onUnsupportedCharacter(character, position);
+		}
+	}
+	
+	/** Writes the separator before a character, if any. */
+	private void separate(Appendable out) throws IOException {
+		if (started){
+			if (wordBreakPending){
+				out.append(WORD_SEPARATOR);
+			} else {
+				out.append(CHARACTER_SEPARATOR);
+			}
+		}
+		started = true;
+		wordBreakPending = false;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Internal interfaces
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Notified of characters that cannot be encoded. 
+	 * @version 0.1.0-20261017 */
+	public interface OnUnsupportedCharacterListener {
+		/** @param character The unsupported character, which is skipped.
+		 * @param index The index of the character in the text. */
+		public void onUnsupportedCharacter(char character, long index);
+	}
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.transcriber;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>A fixed-bucket histogram of edge lateness: how long after its 
+ * scheduled time each signal edge was actually sent. Edges sent early
+ * are counted as on time.</p>
+ * 
+ * <p>Buckets are 1&micro;s wide up to {@value #SUB_BUCKETS}&micro;s, then 
+ * {@value #SUB_BUCKETS} per power of two, so percentiles are within 12.5%
+ * up to ~35 minutes; the maximum is exact. Recording is constant time and 
+ * does not allocate.</p>
+ * 
+ * <p>One thread may record at a time; any thread may take a 
+ * {@link Snapshot}, including while edges are being recorded.</p>
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public class EdgeJitterHistogram {
+	/** Nanoseconds per microsecond. */
+	final static private long NANOS_PER_MICRO = 1000L;
+	/** The number of buckets per power of two. Must be a power of two. */
+	final static private int SUB_BUCKETS = 8;
+	/** The bits in {@link #SUB_BUCKETS}. */
+	final static private int SUB_BUCKET_BITS = 3;
+	/** The largest power of two of microseconds with its own buckets. */
+	final static private int MAX_EXPONENT = 30;
+	/** The number of buckets. */
+	final static private int BUCKET_COUNT = 
+			(MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// End constants
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** The number of edges in each bucket. */
+	final private AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	/** The sum of all lateness in nanoseconds. */
+	final private AtomicLong sum = new AtomicLong();
+	/** The largest lateness in nanoseconds. */
+	final private AtomicLong max = new AtomicLong();
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Action functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Records the lateness of an edge. 
+	 * @param lateness The actual time minus the scheduled time in nanoseconds.
+	 */
+	public void record(long lateness) {
+		if (lateness < 0){
+			lateness = 0;
+		}
+		//single writer; ordered writes suffice and are cheaper than CAS.
+		final int bucket = bucketOf(lateness / NANOS_PER_MICRO);
+		counts.lazySet(bucket, counts.get(bucket) + 1);
+		sum.lazySet(sum.get() + lateness);
+		if (lateness > max.get()){
+			max.lazySet(lateness);
+		}
+	}
+	
+	/** Clears all recorded edges. Should be called by the recording thread. */
+	public void reset() {
+		for (int index = 0; index < BUCKET_COUNT; index++) {
+			counts.lazySet(index, 0);
+		}
+		sum.lazySet(0);
+		max.lazySet(0);
+	}
+	
+	/** @return A copy of the histogram as it is now. */
+	public Snapshot snapshot() {
+		final long[] copy = new long[BUCKET_COUNT];
+		for (int index = 0; index < BUCKET_COUNT; index++) {
+			copy[index] = counts.get(index);
+		}
+		return new Snapshot(copy, sum.get(), max.get());
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** @param micros The lateness in microseconds. >= 0.
+	 * @return The bucket index for the lateness. */
+	static private int bucketOf(long micros) {
+		if (micros < SUB_BUCKETS){
+			return (int) micros;
+		}
+		final int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), 
+				MAX_EXPONENT);
+		final int mantissa = exponent == MAX_EXPONENT && 
+				micros >= (2L << MAX_EXPONENT) ? SUB_BUCKETS - 1 :
+				(int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa;
+	}
+	
+	/** @param bucket The bucket index.
+	 * @return The exclusive upper bound of the bucket in microseconds. */
+	static private long upperBoundOf(int bucket) {
+		if (bucket < SUB_BUCKETS){
+			return bucket + 1;
+		}
+		final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		final int mantissa = bucket % SUB_BUCKETS;
+		return (long) (SUB_BUCKETS + mantissa + 1) << (exponent - SUB_BUCKET_BITS);
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Internal classes
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * An immutable copy of an {@link EdgeJitterHistogram}. 
+	 * All times are in nanoseconds.
+	 * @version 0.1.0-20261017
+	 */
+	static public class Snapshot {
+		/** The number of edges in each bucket. */
+		final private long[] counts;
+		/** The number of edges. */
+		final private long count;
+		/** The sum of all lateness. */
+		final private long sum;
+		/** The largest lateness. */
+		final private long max;
+		
+		private Snapshot(long[] counts, long sum, long max) {
+			long count = 0;
+			for (long bucketCount : counts) {
+				count += bucketCount;
+			}
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.max = max;
+		}
+		
+		/** @return The number of edges recorded. */
+		public long getCount() {
+			return count;
+		}
+		/** @return The mean lateness, or 0 if there are no edges. */
+		public long getMean() {
+			return count == 0 ? 0 : sum / count;
+		}
+		/** @return The largest lateness, or 0 if there are no edges. */
+		public long getMax() {
+			return max;
+		}
+		/** @return The median lateness. */
+		public long getP50() {
+			return getPercentile(0.5);
+		}
+		/** @return The 99th percentile lateness. */
+		public long getP99() {
+			return getPercentile(0.99);
+		}
+		
+		/**
+		 * @param fraction The fraction of edges, between 0 and 1.
+		 * @return The lateness that the given fraction of edges were no later
+		 * than, rounded up to the bucket bound but not beyond the maximum;
+		 * 0 if there are no edges.
+		 */
+		public long getPercentile(double fraction) {
+			if (fraction < 0 || fraction > 1){
+				throw new IllegalArgumentException("Fraction must be between 0 and 1");
+			}
+			if (count == 0){
+				return 0;
+			}
+			final long rank = Math.max(1, (long) Math.ceil(fraction * count));
+			long seen = 0;
+			for (int index = 0; index < BUCKET_COUNT; index++) {
+				seen += counts[index];
+				if (seen >= rank){
+					return Math.min(upperBoundOf(index) * NANOS_PER_MICRO, max);
+				}
+			}
+			return max;
+		}
+		
+		@Override
+		public String toString() {
+			return getClass().getSimpleName() + "(edges: " + count + 
+					", p50: " + getP50() / NANOS_PER_MICRO + 
+					"us, p99: " + getP99() / NANOS_PER_MICRO +
+					"us, max: " + max / NANOS_PER_MICRO + 
+					"us, mean: " + getMean() / NANOS_PER_MICRO + "us)";
+		}
+	}
+}
@@ -15,13 +15,15 @@
  */
 package com.ovrhere.android.morseflash.morsecode.transcriber;
 
+import java.io.IOException;
+import java.io.Reader;
 
 /**
  * The general interface for the morse transcriber. 
  * Used to give a common interface between the object and the HeadlessFragment.
  * 
  * @author Jason J.
- * @version 0.4.0-20140623
+ * @version 0.14.3-20261017
  */
 interface IMorseTranscriber {
 	/////////////////////////////////////////////////////////////////////////////////////////////////
@@ -35,6 +37,35 @@ interface IMorseTranscriber {
 	/** Replaces and sets the listener for signal events. 
 	 * @param signalListener The new listener to use.	 */
 	public void setOnSignalListener(OnSignalListener signalListener);
+	/** Replaces and sets the listener for signal events, with their 
+	 * scheduled times and durations. 
+	 * @param signalListener The new listener to use.
+	 * @param signalEnds <code>true</code> to also send 
+	 * {@link OnTimedSignalListener#onSignalEnd(long, long)}, 
+	 * <code>false</code> if the listener ends signals itself from their 
+	 * duration; this halves the callbacks.	 */
+	public void setOnTimedSignalListener(OnTimedSignalListener signalListener,
+			boolean signalEnds);
+	
+	/** Sets the scheduler used to time signals. Takes effect on the next start.
+	 * @param scheduler The scheduler to use. Cannot be <code>null</code>. */
+	public void setSignalScheduler(SignalScheduler scheduler);
+	/** @return The scheduler used to time signals. */
+	public SignalScheduler getSignalScheduler();
+	
+	/** Sets the latency of the output, so that edges are sent early by it.
+	 * Takes effect on the next start.
+	 * @param latencyProfile The latency of the output, or 
+	 * {@link LatencyProfile#NONE}. Cannot be <code>null</code>. */
+	public void setLatencyProfile(LatencyProfile latencyProfile);
+	/** @return The latency of the output edges are sent early by. */
+	public LatencyProfile getLatencyProfile();
+	
+	/** Sets the readiness of the output, which is waited for before each 
+	 * message or live keying starts; not used by {@link #simulate(long)}.
+	 * @param readySignal The readiness of the output, or <code>null</code>
+	 * to start without waiting. */
+	public void setOutputReadySignal(OutputReadySignal readySignal);
 	
 	/** Sets the message for the transcriber. 
 	 * @param msg The message to transcribe. Note that unsupported characters
@@ -42,6 +73,16 @@ interface IMorseTranscriber {
 	 */
 	public void setMessage(String msg); 
 	
+	/** Sets a message read as it is sent, such as a large text file. 
+	 * Sending starts without reading the whole message and uses bounded 
+	 * memory. The message is sent once and is not looped; nor is it included
+	 * in {@link #getMessageTimeline()}. It is taken by the next start or 
+	 * {@link #takeMessageEdges()}.
+	 * @param reader The source of the message; not closed by the transcriber.
+	 * Unsupported characters will be skipped.
+	 */
+	public void setMessage(Reader reader);
+	
 	/** @param loopMessage Whether or not to loop the message and replay it 
 	 * infinitely.	 */
 	public void setLoop(boolean loopMessage);
@@ -66,6 +107,36 @@ interface IMorseTranscriber {
 	/** @return The unit time equivalent to one dot in milliseconds.	 */
 	public int getUnitTime();
 	
+	/** @return The pad time before and after a message in milliseconds. */
+	public int getPadTime();
+	
+	/** @return The interval between looped messages in units. */
+	public int getLoopInterval();
+	
+	/** Compiles the current message, such as for rendering it to
+	 * another output. Messages set by reader are not included.
+	 * @return The message as a timeline.	 */
+	public MorseTimeline getMessageTimeline();
+	
+	/** Takes the current message as a lazily encoded stream of edges, such as
+	 * for rendering it to another output with memory independent of its
+	 * length. A message set by reader is taken, so is only sent once.
+	 * @return The message's edges or <code>null</code> if there is no message. */
+	public MorseEdgeStream takeMessageEdges();
+	
+	/** Gets how late edges have been sent compared with when they were 
+	 * scheduled, since the last start. May be called while sending.
+	 * @return A snapshot of the edge lateness.	 */
+	public EdgeJitterHistogram.Snapshot getEdgeJitter();
+	
+	/** Gets the time of the current callback within the transmission, such
+	 * as the scheduled time of a signal while in 
+	 * {@link OnSignalListener#onSignalStart()}. Only meaningful from within 
+	 * callbacks.
+	 * @return The time in nanoseconds since the message was started; 
+	 * the time it was parsed is 0.	 */
+	public long getSignalTime();
+	
 	/////////////////////////////////////////////////////////////////////////////////////////////////
 	/// Action functions
 	////////////////////////////////////////////////////////////////////////////////////////////////
@@ -81,6 +152,32 @@ interface IMorseTranscriber {
 	 */
 	public boolean start();
 	
+	/** Starts live keying: the current message, if any, is sent once and
+	 * then characters passed to {@link #type(char)} are sent as they arrive
+	 * until cancelled, without restarting between them.
+	 * @return <code>true</code> if successfully started, <code>false</code> otherwise.
+	 */
+	public boolean startLive();
+	
+	/** Sends the message synchronously on a virtual clock. Listeners are 
+	 * called on the calling thread, in order, without waiting between 
+	 * signals; use {@link #getSignalTime()} for their time.
+	 * Looped messages are repeated until the time limit is passed.
+	 * @param timeLimit The time in milliseconds after which no more loops 
+	 * are started. Must be >= 0.
+	 * @return The duration of the transmission in milliseconds including pads,
+	 * or -1 if it could not be started (such as running, or a cancelled 
+	 * message still ending), was cancelled or could not be read.
+	 */
+	public long simulate(long timeLimit);
+	
+	/** Queues a character to be sent in live keying. Whitespace queues a 
+	 * word break.
+	 * @param character The character to send.
+	 * @return <code>true</code> if queued, <code>false</code> if not live,
+	 * the character is unsupported or the queue is full.	 */
+	public boolean type(char character);
+	
 	/** Cancels the sending.
 	 * @return <code>true</code> if cancelled, <code>false</code> 
 	 * if it cannot be cancelled (such as not running). 
@@ -95,13 +192,17 @@ interface IMorseTranscriber {
 	/** Listens to when the message has been parsed into Morse 
 	* or has finished sending and notifies the listener.
 	* @author Jason J.
-	* @version 0.1.0-20140522
+	* @version 0.2.0-20261017
 	*/
 	public interface OnTranscriptionListener{
 		/** Called when the message has been parsed into morse. */
 		public void onMorseParsed();
 		/** Called when the message has finished sending. */
 		public void onMorseCompleted();
+		/** Called instead of {@link #onMorseCompleted()} when a message set
+		 * by reader could not be read to its end; the part read was sent.
+		 * @param error The error which ended the message.	 */
+		public void onMorseFailed(IOException error);
 	}
 	/**
 	* Listens to when a Morse signal is being starting or ending.
@@ -116,4 +217,28 @@ interface IMorseTranscriber {
 		/** Sent when a signal unit ends. */
 		public void onSignalEnd();
 	}
+	/**
+	* Listens to when a Morse signal is starting or ending, with its scheduled 
+	* time and duration, so that outputs can prepare ahead or hand a whole 
+	* signal to a device. Times are as per the transcriber's 
+	* {@link SignalScheduler#nanoTime()}; callbacks arrive at or just after 
+	* them, less the output's {@link LatencyProfile}. 
+	* Note that this may occur in a thread.
+	* @author Jason J.
+	* @version 0.1.1-20261017
+	* @see SignalListenerAdapter
+	*/
+	public interface OnTimedSignalListener {
+		/** Sent when a signal unit starts. 
+		 * @param time The time the signal was scheduled to start at.
+		 * @param duration The length of the signal in nanoseconds.
+		 * @param nextTime The time the next signal starts at, or -1 if not 
+		 * yet known, such as at the end of the message.	 */
+		public void onSignalStart(long time, long duration, long nextTime);
+		/** Sent when a signal unit ends, if requested.
+		 * @param time The time the signal was scheduled to end at.
+		 * @param nextTime The time the next signal starts at, or -1 if not 
+		 * yet known, such as at the end of the message.	 */
+		public void onSignalEnd(long time, long nextTime);
+	}
 }
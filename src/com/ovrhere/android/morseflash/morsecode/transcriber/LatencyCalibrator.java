@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.transcriber;
+
+import java.util.Arrays;
+
+/**
+ * Calibrates a {@link LatencyProfile} by switching an output on and off
+ * through a {@link LatencyProbe}. Each latency is the median of its 
+ * observed measurements, so occasional slow or missed observations do not 
+ * skew the profile.
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public final class LatencyCalibrator {
+	/** The default number of on/off rounds. */
+	final static public int DEFAULT_ROUNDS = 15;
+	
+	private LatencyCalibrator() {}
+	
+	/** Calibrates with {@value #DEFAULT_ROUNDS} rounds.
+	 * @see #calibrate(LatencyProbe, int) */
+	static public LatencyProfile calibrate(LatencyProbe probe) 
+			throws InterruptedException {
+		return calibrate(probe, DEFAULT_ROUNDS);
+	}
+	
+	/**
+	 * Calibrates an output. The output is turned off first and is left off.
+	 * @param probe The probe of the output.
+	 * @param rounds The number of times to turn the output on and off. 
+	 * Must be > 0.
+	 * @return The median latencies of the output.
+	 * @throws InterruptedException If interrupted while measuring.
+	 * @throws IllegalStateException If no change was observed for either edge.
+	 */
+	static public LatencyProfile calibrate(LatencyProbe probe, int rounds) 
+			throws InterruptedException {
+		if (rounds < 1){
+			throw new IllegalArgumentException("Rounds cannot be <= 0");
+		}
+		final long[] onLatencies = new long[rounds];
+		final long[] offLatencies = new long[rounds];
+		int onCount = 0;
+		int offCount = 0;
+		probe.measure(false); //start from a known state.
+		for (int round = 0; round < rounds; round++) {
+			final long on = probe.measure(true);
+			if (on >= 0){
+				onLatencies[onCount++] = on;
+			}
+			final long off = probe.measure(false);
+			if (off >= 0){
+				offLatencies[offCount++] = off;
+			}
+		}
+		if (onCount == 0 || offCount == 0){
+			throw new IllegalStateException("Output change not observed");
+		}
+		return new LatencyProfile(median(onLatencies, onCount), 
+				median(offLatencies, offCount));
+	}
+	
+	/** @param values The values, sorted in place.
+	 * @param count The number of values to use. > 0.
+	 * @return The median of the values. */
+	static private long median(long[] values, int count) {
+		Arrays.sort(values, 0, count);
+		final int middle = count / 2;
+		return (count & 1) == 1 ? values[middle] : 
+				(values[middle - 1] + values[middle]) / 2;
+	}
+}
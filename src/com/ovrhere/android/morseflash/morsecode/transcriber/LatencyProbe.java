@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.transcriber;
+
+/**
+ * Measures the latency of an output for a {@link LatencyCalibrator}, such 
+ * as by switching the camera LED and watching for the change with a light
+ * sensor or camera.
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ * @see SimulatedLatencyProbe
+ */
+public interface LatencyProbe {
+	/**
+	 * Switches the output and waits until the change is observed.
+	 * @param on <code>true</code> to turn the output on, 
+	 * <code>false</code> to turn it off.
+	 * @return The time from switching to observing the change in nanoseconds,
+	 * or -1 if the change was not observed.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public long measure(boolean on) throws InterruptedException;
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.transcriber;
+
+/**
+ * The delay between an output being told to change and the change being
+ * observed, such as a camera LED taking tens of milliseconds to light or a
+ * screen flash waiting for the next frame. The {@link MorseTranscriber} 
+ * sends each edge early by the profile's latency so that the output changes
+ * on time. Immutable.
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ * @see LatencyCalibrator
+ */
+public final class LatencyProfile {
+	/** Nanoseconds per microsecond. */
+	final static private long NANOS_PER_MICRO = 1000L;
+	
+	/** An output with no latency. */
+	final static public LatencyProfile NONE = new LatencyProfile(0, 0);
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// End constants
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** The time to turn on in nanoseconds. */
+	final private long onLatency;
+	/** The time to turn off in nanoseconds. */
+	final private long offLatency;
+	
+	/**
+	 * @param onLatency The time the output takes to turn on, in nanoseconds.
+	 * Must be >= 0.
+	 * @param offLatency The time the output takes to turn off, in nanoseconds.
+	 * Must be >= 0.
+	 */
+	public LatencyProfile(long onLatency, long offLatency) {
+		if (onLatency < 0 || offLatency < 0){
+			throw new IllegalArgumentException("Latency cannot be < 0");
+		}
+		this.onLatency = onLatency;
+		this.offLatency = offLatency;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessors
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** @return The time the output takes to turn on, in nanoseconds. */
+	public long getOnLatency() {
+		return onLatency;
+	}
+	
+	/** @return The time the output takes to turn off, in nanoseconds. */
+	public long getOffLatency() {
+		return offLatency;
+	}
+	
+	/** @param on <code>true</code> for a signal start, 
+	 * <code>false</code> for a signal end.
+	 * @return The latency of the edge in nanoseconds. */
+	public long getLatency(boolean on) {
+		return on ? onLatency : offLatency;
+	}
+	
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "(on: " + onLatency / NANOS_PER_MICRO + 
+				"us, off: " + offLatency / NANOS_PER_MICRO + "us)";
+	}
+}
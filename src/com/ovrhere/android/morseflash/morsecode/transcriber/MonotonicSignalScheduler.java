@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.transcriber;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The default {@link SignalScheduler}. Uses {@link System#nanoTime()}, which
+ * is unaffected by changes to the wall clock, and parks the waiting thread
+ * via {@link LockSupport#parkNanos(Object, long)}.
+ * Stateless and so may be shared between transcribers.
+ *
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public class MonotonicSignalScheduler implements SignalScheduler {
+
+	@Override
+	public long nanoTime() {
+		return System.nanoTime();
+	}
+
+	@Override
+	public void awaitUntil(long deadline) throws InterruptedException {
+		long remaining = deadline - System.nanoTime();
+		while (remaining > 0){
+			LockSupport.parkNanos(this, remaining);
+			if (Thread.interrupted()){
+				throw new InterruptedException();
+			}
+			//may return spuriously; check again.
+			remaining = deadline - System.nanoTime();
+		}
+		if (Thread.interrupted()){
+			throw new InterruptedException();
+		}
+	}
+}
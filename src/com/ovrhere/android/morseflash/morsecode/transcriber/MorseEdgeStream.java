@@ -0,0 +1,267 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.transcriber;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary;
+import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary.MorseCharacter;
+
+/**
+ * <p>Lazily encodes a message into edges, as {@link MorseTimeline} would,
+ * keeping only a fixed window of upcoming edges. The window is refilled a 
+ * character at a time as edges are taken, so memory and per-edge cost are 
+ * constant regardless of message length.</p>
+ * 
+ * <p>Edges alternate between on and off, starting with on; offsets are in 
+ * units from the start of the message. Whitespace separates words and 
+ * unsupported characters are skipped. Not thread safe.</p>
+ * 
+ * <p>The message may be a {@link CharSequence} or a {@link Reader}. Readers
+ * are read through a fixed buffer just ahead of the edges, so very large 
+ * inputs need bounded memory and produce their first edge immediately; 
+ * they cannot be rewound.</p>
+ * 
+ * <p>Up to {@value #MAX_LOOKAHEAD} upcoming edges may be looked at without
+ * taking them, such as to give the duration of a signal as it starts.</p>
+ * 
+ * @author Jason J.
+ * @version 0.3.0-20261017
+ */
+public final class MorseEdgeStream {
+	/** The number of upcoming edges that can always be peeked at; 
+	 * the edges of the longest character. */
+	final static public int MAX_LOOKAHEAD = 2 * MorseCharacter.MAX_CODE_LENGTH;
+	/** The window capacity in edges; fits the longest character twice. */
+	final static private int WINDOW_SIZE = 2 * MAX_LOOKAHEAD;
+	/** The size of the read buffer for readers. */
+	final static private int READ_BUFFER_SIZE = 4096;
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// End constants
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** The dictionary to encode with. */
+	final private MorseDictionary dictionary;
+	/** The message being encoded, or <code>null</code> if read. */
+	final private CharSequence message;
+	/** The reader of the message, or <code>null</code>. */
+	final private Reader reader;
+	/** The read buffer, if reading. */
+	final private char[] readBuffer;
+	/** The number of characters in {@link #readBuffer}. */
+	private int readLimit = 0;
+	/** The error that ended reading early, if any. */
+	private IOException readError = null;
+	/** The upcoming edge offsets, in units. */
+	final private long[] window = new long[WINDOW_SIZE];
+	/** The index of the next edge in {@link #window}. */
+	private int head = 0;
+	/** The number of edges in {@link #window}. */
+	private int size = 0;
+	/** The index in {@link #message} or {@link #readBuffer} of the next 
+	 * character to encode. */
+	private int position = 0;
+	/** The offset in units of the end of the last encoded signal. */
+	private long cursor = 0;
+	/** Whether any character has been encoded. */
+	private boolean started = false;
+	/** Whether a word break comes before the next character. */
+	private boolean wordBreakPending = false;
+	/** The number of edges taken. */
+	private long taken = 0;
+	
+	/**
+	 * @param dictionary The dictionary used to translate characters into morse.
+	 * @param message The message to encode. Read lazily, so should not 
+	 * change while in use.
+	 */
+	public MorseEdgeStream(MorseDictionary dictionary, CharSequence message) {
+		this.dictionary = dictionary;
+		this.message = message;
+		this.reader = null;
+		this.readBuffer = null;
+	}
+	
+	/**
+	 * @param dictionary The dictionary used to translate characters into morse.
+	 * @param reader The source of the message, read as edges are needed. 
+	 * Not closed by this object.
+	 */
+	public MorseEdgeStream(MorseDictionary dictionary, Reader reader) {
+		this.dictionary = dictionary;
+		this.message = null;
+		this.reader = reader;
+		this.readBuffer = new char[READ_BUFFER_SIZE];
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessors
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** @return <code>true</code> if there is another edge, 
+	 * <code>false</code> at the end of the message. */
+	public boolean hasNext() {
+		fill();
+		return size > 0;
+	}
+	
+	/** @return <code>true</code> if the next edge is a signal start,
+	 * <code>false</code> if a signal end. */
+	public boolean isNextOn() {
+		return MorseTimeline.isOnEdge((int) (taken & 1));
+	}
+	
+	/** Takes the next edge.
+	 * @return The offset of the edge in units from the start of the message.
+	 * @throws IllegalStateException If there are no more edges. */
+	public long next() {
+		if (!hasNext()){
+			throw new IllegalStateException("No more edges");
+		}
+		final long offset = window[head];
+		head = (head + 1) % WINDOW_SIZE;
+		size--;
+		taken++;
+		return offset;
+	}
+	
+	/** Looks at an upcoming edge without taking it.
+	 * @param ahead The number of edges to look past; 0 is the next edge.
+	 * Must be &gt;= 0 and &lt; {@value #MAX_LOOKAHEAD}.
+	 * @return The offset of the edge in units from the start of the message,
+	 * or -1 if the message ends before it. */
+	public long peek(int ahead) {
+		if (ahead < 0 || ahead >= MAX_LOOKAHEAD){
+			throw new IllegalArgumentException("Cannot peek " + ahead + " edges ahead");
+		}
+		fill();
+		return ahead < size ? window[(head + ahead) % WINDOW_SIZE] : -1;
+	}
+	
+	/** @return <code>true</code> if the stream can be rewound,
+	 * <code>false</code> if it is read from a {@link Reader}. */
+	public boolean canRewind() {
+		return reader == null;
+	}
+	
+	/** @return The error which ended reading early, or <code>null</code>. 
+	 * Reading errors end the message. */
+	public IOException getReadError() {
+		return readError;
+	}
+	
+	/** @return The length of the message in units, up to the last signal end.
+	 * Only complete once {@link #hasNext()} is <code>false</code>. */
+	public long getDuration() {
+		return cursor;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Action functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Returns to the start of the message, such as to loop it. 
+	 * @throws IllegalStateException If read from a {@link Reader}. */
+	public void rewind() {
+		if (!canRewind()){
+			throw new IllegalStateException("Cannot rewind a reader");
+		}
+		head = size = 0;
+		position = 0;
+		cursor = 0;
+		started = false;
+		wordBreakPending = false;
+		taken = 0;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Encodes characters while the window has room for the longest. */
+	private void fill() {
+		while (WINDOW_SIZE - size >= MAX_LOOKAHEAD){
+			final int next = nextChar();
+			if (next < 0){
+				return;
+			}
+			final char character = (char) next;
+			if (Character.isWhitespace(character)){
+				wordBreakPending = true;
+				continue;
+			}
+			final MorseCharacter mchar = dictionary.encodeChar(character);
+			if (mchar != null){
+				append(mchar);
+			}
+		}
+	}
+	
+	/** @return The next character of the message, or -1 at its end. */
+	private int nextChar() {
+		if (reader == null){
+			return position < message.length() ? message.charAt(position++) : -1;
+		}
+		if (readLimit < 0){
+			return -1;
+		}
+		if (position == readLimit){
+			try {
+				readLimit = reader.read(readBuffer, 0, READ_BUFFER_SIZE);
+			} catch (IOException e){
+				readError = e;
+				readLimit = -1;
+			}
+			position = 0;
+			if (readLimit <= 0){
+				readLimit = -1; //end of stream; also guards against empty reads.
+				return -1;
+			}
+		}
+		return readBuffer[position++];
+	}
+	
+	/** Appends the edges of a character with the standard gaps. */
+	private void append(MorseCharacter mchar) {
+		final int SIZE = mchar.getLength();
+		if (SIZE == 0){
+			return;
+		}
+		if (started){
+			cursor += wordBreakPending ? MorseTimeline.REL_INTERVAL_WORD 
+										: MorseTimeline.REL_INTERVAL_CHARACTER;
+		}
+		started = true;
+		wordBreakPending = false;
+		for (int index = 0; index < SIZE; index++) {
+			if (index > 0){
+				cursor += MorseTimeline.REL_INTERVAL_PATTERN_UNIT;
+			}
+			push(cursor);
+			cursor += mchar.isDash(index) ? MorseTimeline.REL_INTERVAL_DASH 
+											: MorseTimeline.REL_INTERVAL_DOT;
+			push(cursor);
+		}
+	}
+	
+	/** Adds an edge to the end of the window. */
+	private void push(long offset) {
+		window[(head + size) % WINDOW_SIZE] = offset;
+		size++;
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.transcriber;
+
+import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary;
+import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary.MorseCharacter;
+
+/**
+ * <p>An immutable, compiled morse message. The message is stored as a
+ * primitive array of edge offsets measured in Time Units (TU) from the start
+ * of the message. Edges alternate between on and off, starting with on;
+ * thus even indices are signal starts and odd indices are signal ends.</p>
+ * 
+ * <p>Spacing follows the standard: {@value #REL_INTERVAL_PATTERN_UNIT}TU
+ * between dots and dashes, {@value #REL_INTERVAL_CHARACTER}TU between 
+ * characters and {@value #REL_INTERVAL_WORD}TU between words, regardless of
+ * their position in the message.</p>
+ *
+ * <p>Timelines are created either by {@link #compile(MorseDictionary, CharSequence)}
+ * or by using the {@link MorseTimeline.Builder}. To send long messages without
+ * holding all their edges, see {@link MorseEdgeStream}.</p>
+ *
+ * @author Jason J.
+ * @version 0.3.1-20261017
+ */
+public final class MorseTimeline {
+	/** The relative interval for each dot. */
+	final static int REL_INTERVAL_DOT = 1; //units
+	/** The relative interval for each dash. */
+	final static int REL_INTERVAL_DASH = 3; //units
+	/** The relative interval between each pattern unit. */
+	final static int REL_INTERVAL_PATTERN_UNIT = 1; //units
+	/** The relative interval between each morse letter. */
+	final static int REL_INTERVAL_CHARACTER = 3; //units
+	/** The relative interval between each word. */
+	final static int REL_INTERVAL_WORD = 7; //units
+
+	/** An empty timeline. */
+	final static public MorseTimeline EMPTY = new MorseTimeline(new int[0], 0);
+
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// End constants
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** The edge offsets in units. Even indices are on, odd are off. */
+	final private int[] edges;
+	/** The length of the message in units, ending on the last signal end. */
+	final private int duration;
+
+	/**
+	 * @param edges The edges to use. Not copied.
+	 * @param duration The duration in units.
+	 */
+	private MorseTimeline(int[] edges, int duration) {
+		this.edges = edges;
+		this.duration = duration;
+	}
+
+	/**
+	 * Compiles a message into a timeline.
+	 * @param dictionary The dictionary used to translate characters into morse.
+	 * @param message The message; whitespace separates words. 
+	 * Unsupported characters are skipped.
+	 * @return The compiled timeline.
+	 */
+	static public MorseTimeline compile(MorseDictionary dictionary, CharSequence message){
+		Builder builder = new Builder();
+		final int LENGTH = message.length();
+		for (int index = 0; index < LENGTH; index++) {
+			final char character = message.charAt(index);
+			if (Character.isWhitespace(character)){
+				builder.addWordBreak();
+				continue;
+			}
+			MorseCharacter mchar = dictionary.encodeChar(character);
+			if (mchar != null){
+				builder.addCharacter(mchar);
+			}
+		}
+		return builder.create();
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessors
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** @return The number of edges (both on and off) in the timeline. */
+	public int getEdgeCount() {
+		return edges.length;
+	}
+
+	/** @param index The edge index.
+	 * @return The offset of the edge in units from the start of the message. */
+	public int getEdgeOffset(int index) {
+		return edges[index];
+	}
+
+	/** @param index The edge index.
+	 * @return <code>true</code> if the edge is a signal start,
+	 * <code>false</code> if a signal end.	 */
+	static public boolean isOnEdge(int index) {
+		return (index & 1) == 0;
+	}
+
+	/** @return The length of the message in units, up to the last signal end. */
+	public int getDuration() {
+		return duration;
+	}
+
+	/** @return <code>true</code> if there are no signals,
+	 * <code>false</code> otherwise. */
+	public boolean isEmpty() {
+		return edges.length == 0;
+	}
+
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Internal classes
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Builds a timeline character by character.
+	 * @author Jason J.
+	 * @version 0.2.0-20261017
+	 */
+	static public class Builder {
+		/** The initial edge capacity. */
+		final static private int INITIAL_CAPACITY = 64;
+
+		/** The edges so far. */
+		private int[] bedges = new int[INITIAL_CAPACITY];
+		/** The number of edges used in {@link #bedges}. */
+		private int count = 0;
+		/** The offset in units of the end of the last signal. */
+		private int cursor = 0;
+		/** Whether a word break comes before the next character. */
+		private boolean wordBreakPending = false;
+
+		/** Appends a character to the current word.
+		 * @param morseCharacter The character to append.
+		 * @return Builder for chaining.	 */
+		public Builder addCharacter(MorseCharacter morseCharacter){
+			final int SIZE = morseCharacter.getLength();
+			if (SIZE == 0){
+				return this;
+			}
+			if (count > 0){
+				cursor += wordBreakPending ? REL_INTERVAL_WORD : REL_INTERVAL_CHARACTER;
+			}
+			wordBreakPending = false;
+			ensureCapacity(count + SIZE * 2);
+			for (int index = 0; index < SIZE; index++) {
+				final int length = morseCharacter.isDash(index) ? 
+						REL_INTERVAL_DASH : REL_INTERVAL_DOT;
+				if (index > 0){
+					cursor += REL_INTERVAL_PATTERN_UNIT;
+				}
+				bedges[count++] = cursor;
+				cursor += length;
+				bedges[count++] = cursor;
+			}
+			return this;
+		}
+
+		/** Ends the current word; the next character starts a new word.
+		 * Consecutive breaks, or breaks before the first character, 
+		 * add no further space.
+		 * @return Builder for chaining.	 */
+		public Builder addWordBreak(){
+			wordBreakPending = true;
+			return this;
+		}
+
+		/** @return The timeline built so far. */
+		public MorseTimeline create(){
+			if (count == 0){
+				return EMPTY;
+			}
+			int[] edges = new int[count];
+			System.arraycopy(bedges, 0, edges, 0, count);
+			return new MorseTimeline(edges, edges[count - 1]);
+		}
+
+		/** Grows the edge buffer to at least the given size. */
+		private void ensureCapacity(int size) {
+			if (size > bedges.length){
+				int[] grown = new int[Math.max(size, bedges.length * 2)];
+				System.arraycopy(bedges, 0, grown, 0, count);
+				bedges = grown;
+			}
+		}
+	}
+}
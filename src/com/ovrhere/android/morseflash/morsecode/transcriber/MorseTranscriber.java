@@ -15,11 +15,15 @@
  */
 package com.ovrhere.android.morseflash.morsecode.transcriber;
 
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary;
 import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary.MorseCharacter;
@@ -30,10 +34,10 @@ import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary.Mor
  * <a href="http://en.wikipedia.org/wiki/Morse_code">Morse code</a>, namely:
  * <ul>
  * <li>dots are 1 Time Unit (TU)</li>
- * <li>dashes are {@value #REL_INTERVAL_DASH}TU</li>
+ * <li>dashes are {@value MorseTimeline#REL_INTERVAL_DASH}TU</li>
  * <li>intervals between intra-characters (dashes/dots) are 1TU</li>
- * <li>intervals between characters (a b c) are {@value #REL_INTERVAL_CHARACTER}TU</li>
- * <li>intervals between words are {@value #REL_INTERVAL_WORD}TU</li> 
+ * <li>intervals between characters (a b c) are {@value MorseTimeline#REL_INTERVAL_CHARACTER}TU</li>
+ * <li>intervals between words are {@value MorseTimeline#REL_INTERVAL_WORD}TU</li> 
  * </ul>
  * An additional (non-standard) interval of {@value #REL_INTERVAL_LOOP_MESSAGE}TU
  * is given between looped-message iterations. Default unit time is 
@@ -48,26 +52,72 @@ import com.ovrhere.android.morseflash.morsecode.dictionaries.MorseDictionary.Mor
  * Consider using {@link MorseTranscriberHeadlessFragment} within activities.
  * </p> 
  * 
+ * <p>Messages are encoded lazily by a {@link MorseEdgeStream} as they are
+ * sent, which keeps a small fixed window of upcoming edges; only the next 
+ * edge is ever scheduled. Memory and per-edge cost are thus constant in
+ * message length and the single playback loop does not allocate per signal;
+ * looped messages rewind the same stream, so a long-running beacon 
+ * allocates nothing per iteration with the default scheduler.
+ * Signals are timed by a {@link SignalScheduler}; by default a
+ * {@link MonotonicSignalScheduler}.</p>
+ * 
+ * <p>Messages are played on a single worker thread that is created on
+ * the first start, reused by later starts and released after 
+ * {@value #WORKER_KEEP_ALIVE}s idle. Each start has its own playback state,
+ * so a cancelled message that is still finishing cannot affect the next.</p>
+ * 
+ * <p>In live keying ({@link #startLive()}) the current message is sent first,
+ * so it is not limited by the queue; then each typed character is encoded
+ * and queued in constant time, and the worker sends them as they arrive 
+ * with standard gaps; if idle, the next character is sent immediately.</p>
+ * 
+ * <p>The lateness of every edge sent, relative to its scheduled time, is 
+ * recorded in an {@link EdgeJitterHistogram} which is cleared at each start;
+ * see {@link #getEdgeJitter()}.</p>
+ * 
+ * <p>{@link #simulate(long)} sends the message on the calling thread 
+ * against a {@link VirtualSignalScheduler}, so every callback arrives 
+ * as fast as it can be processed; {@link #getSignalTime()} gives each 
+ * its time in the transmission.</p>
+ * 
+ * <p>Signals are sent to an {@link OnTimedSignalListener} with their 
+ * scheduled time, duration and the time of the next signal, taken from 
+ * the stream's look-ahead. Plain {@link OnSignalListener}s are adapted by 
+ * a {@link SignalListenerAdapter}.</p>
+ * 
+ * <p>Edges are sent early by the output's {@link LatencyProfile}, if set, 
+ * so that the output changes on time; listeners are still given the ideal
+ * times, and edge lateness is measured against the early time.</p>
+ * 
+ * <p>If an {@link OutputReadySignal} is set, the worker waits up to 
+ * {@value #OUTPUT_READY_TIMEOUT}ms for the output to be ready before the 
+ * pad time starts.</p>
+ * 
  * @author Jason J.
- * @version 0.4.1-20140713
+ * @version 0.14.7-20261017
  */
 public class MorseTranscriber implements IMorseTranscriber {
 	/** The tag used for logging. */
-	@SuppressWarnings("unused")
 	final static private String LOGTAG = MorseTranscriber.class.getSimpleName();
 	/** The default unit time in milliseconds. */
 	final private static int DEFAULT_UNIT_TIME = 100; //ms
 	/** The default pad time in milliseconds. */
 	final private static int DEFAULT_PAD_TIME = 500; //ms
+	/** Nanoseconds per millisecond. */
+	final private static long NANOS_PER_MILLI = 1000000L;
+	
+	/** The longest time in milliseconds to wait for the output to be ready. */
+	final private static long OUTPUT_READY_TIMEOUT = 3000; //ms
+	
+	/** The time in seconds an idle worker thread is kept for. */
+	final private static int WORKER_KEEP_ALIVE = 30; //s
+	
+	/** The number of characters that can be queued in live keying. */
+	final private static int LIVE_QUEUE_SIZE = 256;
+	/** The queued marker of a word break in live keying. */
+	final private static MorseCharacter WORD_BREAK = 
+			MorseCharacter.fromCode(MorseDictionary.EMPTY_CODE);
 	
-	/* * The relative interval between each pattern unit. */
-	//final private static int REL_INTERVAL_PATTERN_UNIT = 1; //units
-	/** The relative interval for each dash. */
-	final private static int REL_INTERVAL_DASH = 3; //units
-	/** The relative interval between each morse letter. */
-	final private static int REL_INTERVAL_CHARACTER = 3; //units
-	/** The relative interval between each word. */
-	final private static int REL_INTERVAL_WORD = 7; //units
 	/** The relative interval between each message (if looped). */
 	final private static int REL_INTERVAL_LOOP_MESSAGE = 15; //units
 	
@@ -80,16 +130,6 @@ public class MorseTranscriber implements IMorseTranscriber {
 	/** The number of milliseconds considered to be one unit. 
 	 * Default value is {@value #DEFAULT_UNIT_TIME}. */ 
 	private int unitTime = DEFAULT_UNIT_TIME; //ms
-	/** The timing for between dots and dashes is unit time. */
-	private int morseSymbolInterval = unitTime;
-	/** The timing for dots is unit time. */
-	private int morseDotInterval = unitTime;	
-	/** The timing for dashes ({@link #unitTime}* {@link #REL_INTERVAL_DASH}). */
-	private int morseDashInterval = unitTime * REL_INTERVAL_DASH;
-	/** The timing between characters ({@link #unitTime}* {@link #REL_INTERVAL_CHARACTER}). */
-	private int morseCharInterval = unitTime * REL_INTERVAL_CHARACTER;
-	/** The timing between words ({@link #unitTime}* {@link #REL_INTERVAL_WORD}). */
-	private int morseWordInterval = unitTime * REL_INTERVAL_WORD;
 	/** The timing between messages ({@link #unitTime}* {@link #REL_INTERVAL_LOOP_MESSAGE}). */
 	private int morseLoopMessageInterval = unitTime * REL_INTERVAL_LOOP_MESSAGE;
 	
@@ -97,31 +137,67 @@ public class MorseTranscriber implements IMorseTranscriber {
 	private MorseDictionary dictionary = null;
 	
 	/** The signal listener that defines the actions to do for morse code. */
-	private OnSignalListener m_SignalListener = null;
+	volatile private OnTimedSignalListener m_SignalListener = null;
+	/** Whether to send signal ends to {@link #m_SignalListener}. */
+	volatile private boolean signalEnds = true;
 	/** The morse listener for events. Can be null. */
 	private OnTranscriptionListener m_MorseListener = null;
 	
-	/** The time to use to schedule morse signals. */
-	private Timer signalTimer = new Timer();	
-	
-	/** Whether the message should continue processing. Default false. */
-	volatile private boolean continueMessageProcessing = false;
-	/** Whether the message is currently sending. */
-	volatile private boolean messageIsSending = false;
+	/** The scheduler used to time signals. */
+	private SignalScheduler scheduler = null;
+	/** The latency of the output to send edges early by. */
+	volatile private LatencyProfile latencyProfile = LatencyProfile.NONE;
+	/** The readiness of the output to wait for before sending, if any. */
+	volatile private OutputReadySignal outputReadySignal = null;
+	/** The worker playing messages. Its thread is created on demand. */
+	final private ThreadPoolExecutor worker = new ThreadPoolExecutor(1, 1, 
+			WORKER_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+			new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, LOGTAG);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+	/** The scheduler time the current message was started at. */
+	private long signalOrigin = 0;
+	/** The time of the current callback in nanoseconds since 
+	 * {@link #signalOrigin}. */
+	volatile private long signalTime = 0;
+	/** The lateness of edges sent since the last start. 
+	 * Recorded by {@link #worker} only. */
+	final private EdgeJitterHistogram edgeJitter = new EdgeJitterHistogram();
+	/** The current or last message or live keying session, if any. */
+	volatile private Playback playback = null;
 	
 	/** Whether or not to play the message again when completed. Default false. */
 	volatile private boolean loopMessage = false; 
 
-	/** A list of the words in the message after said message has been exploded. */
-	private String[] messageList = new String[]{};
+	/** The message to send. */
+	volatile private String message = "";
+	/** The reader of the message to send, if set by reader. 
+	 * Taken by the next message sent. */
+	volatile private Reader messageReader = null;
 	
 	/**
 	 * @param dictionary The dictionary used to translate between strings and morse.
 	 * @param signalListener The listener for when morse start/end signals are sent.
 	 */
 	public MorseTranscriber(MorseDictionary dictionary, OnSignalListener signalListener) {
+		this(dictionary, signalListener, new MonotonicSignalScheduler());
+	}
+	/**
+	 * @param dictionary The dictionary used to translate between strings and morse.
+	 * @param signalListener The listener for when morse start/end signals are sent.
+	 * @param scheduler The scheduler used to time signals.
+	 */
+	public MorseTranscriber(MorseDictionary dictionary, OnSignalListener signalListener,
+			SignalScheduler scheduler) {
 		this.dictionary = dictionary;
-		this.m_SignalListener = signalListener;
+		setOnSignalListener(signalListener);
+		setSignalScheduler(scheduler);
+		worker.allowCoreThreadTimeOut(true);
 	}
 	
 	/////////////////////////////////////////////////////////////////////////////////////////////////
@@ -137,14 +213,57 @@ public class MorseTranscriber implements IMorseTranscriber {
 	
 	@Override
 	public void setOnSignalListener(OnSignalListener signalListener) {
-		this.m_SignalListener  = signalListener;
+		setOnTimedSignalListener(signalListener == null ? null : 
+				new SignalListenerAdapter(signalListener), true);
 	}
 	
 	@Override
-	public void setMessage(String msg){
-		synchronized (messageList){
-			this.messageList = msg.split("\\s+");
+	public void setOnTimedSignalListener(OnTimedSignalListener signalListener,
+			boolean signalEnds) {
+		this.signalEnds = signalEnds;
+		this.m_SignalListener = signalListener;
+	}
+	
+	@Override
+	public void setSignalScheduler(SignalScheduler scheduler) {
+		if (scheduler == null){
+			throw new NullPointerException("Scheduler cannot be null");
+		}
+		this.scheduler = scheduler;
+	}
+	
+	@Override
+	public SignalScheduler getSignalScheduler() {
+		return scheduler;
+	}
+	
+	@Override
+	public void setLatencyProfile(LatencyProfile latencyProfile) {
+		if (latencyProfile == null){
+			throw new NullPointerException("Latency profile cannot be null");
 		}
+		this.latencyProfile = latencyProfile;
+	}
+	
+	@Override
+	public LatencyProfile getLatencyProfile() {
+		return latencyProfile;
+	}
+	
+	@Override
+	public void setOutputReadySignal(OutputReadySignal readySignal) {
+		this.outputReadySignal = readySignal;
+	}
+	
+	@Override
+	public void setMessage(String msg){
+		this.message = msg;
+		this.messageReader = null;
+	}
+	@Override
+	public void setMessage(Reader reader){
+		this.message = "";
+		this.messageReader = reader;
 	}
 	/**
 	 * If set, loops every {@value #REL_INTERVAL_LOOP_MESSAGE} units.
@@ -157,7 +276,8 @@ public class MorseTranscriber implements IMorseTranscriber {
 	
 	@Override
 	public boolean isRunning() {
-		return messageIsSending || continueMessageProcessing;
+		final Playback current = playback;
+		return current != null && current.isActive();
 	}
 	
 	@Override 
@@ -177,17 +297,42 @@ public class MorseTranscriber implements IMorseTranscriber {
 			throw new IllegalArgumentException("Unit time cannot be <=0");
 		}
 		this.unitTime = unitTime;
-		morseDotInterval = unitTime;
-		morseSymbolInterval = unitTime;
-		morseDashInterval = unitTime * REL_INTERVAL_DASH;
-		morseCharInterval = unitTime * REL_INTERVAL_CHARACTER;		
-		morseWordInterval = unitTime * REL_INTERVAL_WORD;
 		morseLoopMessageInterval = unitTime * REL_INTERVAL_LOOP_MESSAGE;
 	}
 	@Override 
 	public int getUnitTime() {
 		return unitTime;
 	}
+	@Override
+	public int getPadTime() {
+		return messagePadTime;
+	}
+	@Override
+	public int getLoopInterval() {
+		return REL_INTERVAL_LOOP_MESSAGE;
+	}
+	@Override
+	public MorseTimeline getMessageTimeline() {
+		return compileMessage();
+	}
+	@Override
+	public MorseEdgeStream takeMessageEdges() {
+		final Reader reader = messageReader;
+		messageReader = null;
+		if (reader != null){
+			return new MorseEdgeStream(dictionary, reader);
+		}
+		final String message = this.message;
+		return message.length() == 0 ? null : new MorseEdgeStream(dictionary, message);
+	}
+	@Override
+	public EdgeJitterHistogram.Snapshot getEdgeJitter() {
+		return edgeJitter.snapshot();
+	}
+	@Override
+	public long getSignalTime() {
+		return signalTime;
+	}
 	
 	/////////////////////////////////////////////////////////////////////////////////////////////////
 	/// End mutators + accessors
@@ -200,152 +345,377 @@ public class MorseTranscriber implements IMorseTranscriber {
 	
 	@Override
 	public boolean start(){
-		if (messageList.length == 0 ){
+		if (message.length() == 0 && messageReader == null){
 			//prevent blank messages
 			return false;
 		}
-		//start thread. safety to prevent multiple starts.		
+		//safety to prevent multiple starts.
+		if (isRunning()){
+			return false;
+		}
+		return submit(new Playback(false));
+	}
+	
+	@Override
+	public boolean startLive(){
+		if (isRunning()){
+			return false;
+		}
+		return submit(new Playback(true));
+	}
+	
+	@Override
+	public long simulate(long timeLimit){
+		if (timeLimit < 0){
+			throw new IllegalArgumentException("Time limit cannot be < 0");
+		}
+		if (message.length() == 0 && messageReader == null){
+			return -1;
+		}
+		final Playback previous = playback;
+		if (previous != null && !previous.finished){
+			//a cancelled playback may still be ending on the worker.
+			return -1;
+		}
+		final Playback run = new Playback(false);
+		playback = run;
+		final SignalScheduler clock = new VirtualSignalScheduler();
+		//unbounded rather than overflowing for very long limits.
+		final long loopLimit = timeLimit > Long.MAX_VALUE / NANOS_PER_MILLI ? 
+				Long.MAX_VALUE : timeLimit * NANOS_PER_MILLI;
 		try {
-			//throws exception if already started.
-			new Thread(morseParser).start();
-		} catch (Exception e){
+			final long duration = playMessage(run, clock, loopLimit);
+			return duration < 0 ? -1 : duration / NANOS_PER_MILLI;
+		} catch (InterruptedException e){
+			//cancelled from a callback or the thread was interrupted.
+			return -1;
+		} finally {
+			run.finished = true;
+		}
+	}
+	
+	@Override
+	public boolean type(char character){
+		final Playback current = playback;
+		if (current == null || !current.isLive() || !current.isActive()){
 			return false;
 		}
-		return true;
+		if (Character.isWhitespace(character)){
+			return current.liveQueue.offer(WORD_BREAK);
+		}
+		MorseCharacter mchar = dictionary.encodeChar(character);
+		return mchar != null && current.liveQueue.offer(mchar);
 	}
 	
 	@Override
 	public boolean cancel(){
-		boolean isCancelSuccess = false;
-		if (continueMessageProcessing){
-			continueMessageProcessing = false;			
-			isCancelSuccess = true;
-		}	
-		if (messageIsSending){
-			messageIsSending = false;
-			synchronized (signalTimer) {				
-				signalTimer.cancel();
-				signalTimer.purge();
-				signalTimer = new Timer();
-			}
-			isCancelSuccess = true;
+		final Playback current = playback;
+		if (current == null || !current.isActive()){
+			return false;
 		}
-		return isCancelSuccess;
+		//wakes the playback from its wait, ending it.
+		current.cancel();
+		return true;
 	}
 		
 	
 	/////////////////////////////////////////////////////////////////////////////////////////////////
 	/// Helper functions
 	////////////////////////////////////////////////////////////////////////////////////////////////
+	/** Compiles the current message into a timeline.
+	 * @return The compiled message.	 */
+	private MorseTimeline compileMessage() {
+		return MorseTimeline.compile(dictionary, message);
+	}
+	
+	/** Makes the playback current and queues it on the worker, behind any
+	 * cancelled playback still finishing.
+	 * @param run The playback to start.
+	 * @return <code>true</code> if queued, <code>false</code> otherwise. */
+	private boolean submit(Playback run) {
+		playback = run;
+		try {
+			run.setTask(worker.submit(run));
+		} catch (RejectedExecutionException e){
+			run.finished = true;
+			return false;
+		}
+		return true;
+	}
+	
+	/** Waits for the output to be ready, if there is a signal. If it is
+	 * not ready in time, sending starts regardless.
+	 * @throws InterruptedException If cancelled while waiting. */
+	private void awaitOutputReady() throws InterruptedException {
+		final OutputReadySignal readySignal = outputReadySignal;
+		if (readySignal != null){
+			//if not ready in time, the output may still ready itself later.
+			readySignal.awaitReady(OUTPUT_READY_TIMEOUT);
+		}
+	}
+	
 	/**
-	 * Converts a signal word into a morse message as best as possible.
-	 * @param word The word to explode and translate to morse.
-	 * @return The word converted to Morse code.
+	 * Takes the current message and plays it, notifying the morse listener 
+	 * once it is parsed.
+	 * @param run The playback state.
+	 * @param scheduler The scheduler to time the message with.
+	 * @param loopLimit The time after the start, in nanoseconds, after which 
+	 * loops are not started.
+	 * @return The duration of the message including pads, in nanoseconds,
+	 * or -1 if the message could not be read. 
+	 * @throws InterruptedException If cancelled once parsed or during playback.
 	 */
-	private List<MorseCharacter> wordToMorse(String word){
-		List<MorseCharacter> charList = 
-				new ArrayList<MorseCharacter>();
-		char[] letters = word.toCharArray();
-		final int SIZE = letters.length;
-		for (int index = 0; index < SIZE; index++) {
-			MorseCharacter mchar = 
-					dictionary.encodeChar(letters[index]);
-			if (mchar != null){
-				charList.add(mchar);
-			}
-		}		
-		return charList;
+	private long playMessage(Playback run, SignalScheduler scheduler, long loopLimit) 
+			throws InterruptedException {
+		edgeJitter.reset();
+		signalOrigin = scheduler.nanoTime();
+		signalTime = 0;
+		MorseEdgeStream edges = takeMessageEdges();
+		if (edges == null){
+			//cleared since starting; send the pads alone.
+			edges = new MorseEdgeStream(dictionary, "");
+		}
+		if (m_MorseListener != null){
+			m_MorseListener.onMorseParsed();
+		}
+		if (run.cancelled){
+			//cancelled by the listener before any signal.
+			throw new InterruptedException();
+		}
+		return playEdges(run, edges, scheduler, loopLimit);
 	}
-	/** Parses a morse word and schedules the times to state/end dots+dashes.
-	 * @param start The starting time for the word.
-	 * @param morseWord The word to decode into characters and dots+dashes.
+	
+	/**
+	 * Plays the message, looping as required, by taking its edges and
+	 * waiting for each in turn. Every deadline is computed from the start 
+	 * of the message so timing errors do not accumulate.
+	 * Notifies the morse listener on completion, or of the failure if the
+	 * message could not be read to its end.
+	 * @param run The playback state.
+	 * @param edges The message to play.
+	 * @param scheduler The scheduler to time the message with.
+	 * @param loopLimit The time after {@link #signalOrigin}, in nanoseconds, 
+	 * after which loops are not started.
+	 * @return The duration of the message including pads, in nanoseconds,
+	 * or -1 if the message could not be read. 
+	 * @throws InterruptedException If cancelled during playback.
 	 */
-	private void parseMorseWord(Date start, List<MorseCharacter> morseWord){
-		final int SIZE = morseWord.size();
-		for (int index = 0; index < SIZE; index++) {
-			parseMorseCharacter(start, morseWord.get(index));
-			//if there are more letters in the word.
-			if(index + 1 < SIZE){
-				//set's the next character's start time as 1 unit from the last.
-				offsetTime(start, morseCharInterval * (index+1));
+	private long playEdges(final Playback run, final MorseEdgeStream edges, 
+			final SignalScheduler scheduler, final long loopLimit) 
+			throws InterruptedException {
+		final long unit = unitTime * NANOS_PER_MILLI;
+		long start = signalOrigin + messagePadTime * NANOS_PER_MILLI;
+		
+		while (true) {
+			sendEdges(run, edges, scheduler, start, loopLimit);
+			final long loopTime = nextLoopTime(edges, start, loopLimit);
+			if (loopTime < 0){
+				start += edges.getDuration() * unit;
+				break;
 			}
+			start = loopTime;
+			edges.rewind();
+		}
+		if (edges.getReadError() != null){
+			failed(run, start - signalOrigin, edges.getReadError());
+			return -1;
+		}
+		final long end = start + messagePadTime * NANOS_PER_MILLI;
+		scheduler.awaitUntil(end);
+		if (run.cancelled){
+			throw new InterruptedException();
 		}
+		signalTime = end - signalOrigin;
+		//ended; the listener may start the next message.
+		run.finished = true;
+		if (m_MorseListener != null){
+			m_MorseListener.onMorseCompleted();
+		}
+		return end - signalOrigin;
 	}
 	
 	/**
-	 * Parses morse character and schedules the times to start/end dots+dashes. 
-	 * @param start The start time for the character
-	 * @param morseCharacter The character to decode into dots+dashes.
+	 * Sends the remaining edges of the message, waiting for each in turn.
+	 * @param run The playback state.
+	 * @param edges The message to send.
+	 * @param scheduler The scheduler to time the message with.
+	 * @param start The time the message started at.
+	 * @param loopLimit The time after {@link #signalOrigin}, in nanoseconds, 
+	 * after which loops are not started.
+	 * @throws InterruptedException If cancelled during sending.
 	 */
-	private void parseMorseCharacter(Date start, MorseCharacter morseCharacter) {
-		final List<Integer> pattern = morseCharacter.getPattern();
-		final int SIZE = pattern.size();
-		for(int index = 0; index < SIZE; index++){
-		//for (Integer symbol : pattern) {
-			if (!continueMessageProcessing){ //if we are not to continue
-				break;
+	private void sendEdges(final Playback run, final MorseEdgeStream edges, 
+			final SignalScheduler scheduler, final long start, final long loopLimit) 
+			throws InterruptedException {
+		final long unit = unitTime * NANOS_PER_MILLI;
+		final LatencyProfile latency = latencyProfile;
+		while (edges.hasNext()) {
+			final boolean on = edges.isNextOn();
+			final long deadline = start + edges.next() * unit;
+			if (!on && !signalEnds){
+				continue; //the listener ends signals itself.
 			}
-			Integer symbol = pattern.get(index);
-			
-			MorseSignalTask startSignal = new MorseSignalTask(true, m_SignalListener);
-			MorseSignalTask endSignal = new MorseSignalTask(false, m_SignalListener);
-			Date end = null;
-			
-			if (symbol == MorseDictionary.DOT){
-				end = new Date(start.getTime() + morseDotInterval);
-			} else if (symbol == MorseDictionary.DASH){
-				end = new Date(start.getTime() + morseDashInterval);
+			//the next start is two edges ahead of a start, one of an end.
+			final long nextOffset = edges.peek(on ? 1 : 0);
+			final long nextTime = nextOffset >= 0 ? start + nextOffset * unit :
+					nextLoopTime(edges, start, loopLimit);
+			final long fireTime = deadline - latency.getLatency(on);
+			scheduler.awaitUntil(fireTime);
+			if (run.cancelled){
+				//cancelled without interrupting, such as in a callback.
+				throw new InterruptedException();
+			}
+			if (on){
+				dispatchStart(deadline, scheduler.nanoTime() - fireTime, 
+						start + edges.peek(0) * unit - deadline, nextTime);
 			} else {
-				continue;
-			}				
-			signalTimer.schedule(startSignal, start);
-			signalTimer.schedule(endSignal, end);
-			
-			start.setTime(end.getTime());
-			if(index + 1 < SIZE){
-				offsetTime(start, morseSymbolInterval * (index+1));
+				dispatchEnd(deadline, scheduler.nanoTime() - fireTime, nextTime);
 			}
 		}
 	}
 	
-	
-	/////////////////////////////////////////////////////////////////////////////////////////////////
-	/// Utility functions
-	////////////////////////////////////////////////////////////////////////////////////////////////
-	
 	/**
-	 * Convenience function.
-	 * Adds the time to {@link Date#getTime()} and resets the date's time.
-	 * @param date The time to offset (Reference)
-	 * @param time The time in milliseconds to add.
+	 * Sends the current message, if any, then queued characters as they 
+	 * arrive until cancelled. Each character starts after the standard gap 
+	 * from the end of the previous one or immediately, whichever is later.
+	 * @param run The live keying state.
+	 * @throws InterruptedException When cancelled.
 	 */
-	static private void offsetTime(Date date, long time) {
-		date.setTime(date.getTime() + time);
+	private void playLive(Playback run) throws InterruptedException {
+		edgeJitter.reset();
+		signalOrigin = scheduler.nanoTime();
+		signalTime = 0;
+		if (m_MorseListener != null){
+			m_MorseListener.onMorseParsed();
+		}
+		if (run.cancelled){
+			return;
+		}
+		final SignalScheduler scheduler = this.scheduler;
+		final long unit = unitTime * NANOS_PER_MILLI;
+		final long onLatency = latencyProfile.getOnLatency();
+		final long offLatency = latencyProfile.getOffLatency();
+		//the end of the last signal; the pad is the first gap.
+		long cursor = signalOrigin + messagePadTime * NANOS_PER_MILLI;
+		boolean first = true;
+		boolean wordBreak = false;
+		//the message typed before starting is sent first, without looping.
+		final MorseEdgeStream edges = takeMessageEdges();
+		if (edges != null){
+			sendEdges(run, edges, scheduler, cursor, 0);
+			if (edges.getReadError() != null){
+				failed(run, cursor + edges.getDuration() * unit - signalOrigin, 
+						edges.getReadError());
+				return;
+			}
+			if (edges.getDuration() > 0){
+				cursor += edges.getDuration() * unit;
+				first = false;
+			}
+		}
+		
+		while (true){
+			final MorseCharacter mchar = run.liveQueue.take();
+			final int SIZE = mchar.getLength();
+			if (SIZE == 0){
+				wordBreak = !first;
+				continue;
+			}
+			long time = cursor;
+			if (!first){
+				time += (wordBreak ? MorseTimeline.REL_INTERVAL_WORD 
+									: MorseTimeline.REL_INTERVAL_CHARACTER) * unit;
+			}
+			time = Math.max(time, scheduler.nanoTime());
+			for (int index = 0; index < SIZE; index++) {
+				if (index > 0){
+					time += MorseTimeline.REL_INTERVAL_PATTERN_UNIT * unit;
+				}
+				final long duration = (mchar.isDash(index) ? 
+						MorseTimeline.REL_INTERVAL_DASH : MorseTimeline.REL_INTERVAL_DOT) * unit;
+				//only the next signal within the character is known.
+				final long nextTime = index + 1 < SIZE ? 
+						time + duration + MorseTimeline.REL_INTERVAL_PATTERN_UNIT * unit : -1;
+				scheduler.awaitUntil(time - onLatency);
+				if (run.cancelled){
+					//cancelled without interrupting, such as in a callback.
+					throw new InterruptedException();
+				}
+				dispatchStart(time, scheduler.nanoTime() - (time - onLatency), 
+						duration, nextTime);
+				time += duration;
+				if (signalEnds){
+					scheduler.awaitUntil(time - offLatency);
+					if (run.cancelled){
+						throw new InterruptedException();
+					}
+					dispatchEnd(time, scheduler.nanoTime() - (time - offLatency), nextTime);
+				}
+			}
+			cursor = time;
+			first = false;
+			wordBreak = false;
+		}
 	}
 	
-	/////////////////////////////////////////////////////////////////////////////////////////////////
-	/// Internal classes
-	////////////////////////////////////////////////////////////////////////////////////////////////
-	
+	/**
+	 * Ends the playback as the message was cut short by a read error, 
+	 * and notifies the morse listener of the failure instead of completion.
+	 * @param run The playback state.
+	 * @param time The time of the last signal end after {@link #signalOrigin}.
+	 * @param error The error which ended the message.
+	 */
+	private void failed(Playback run, long time, IOException error) {
+		signalTime = time;
+		run.finished = true;
+		if (m_MorseListener != null){
+			m_MorseListener.onMorseFailed(error);
+		}
+	}
 	
 	/**
-	 * Denotes either the beginning or end of a morse signal unit (Dot/Dash).
-	 * @version 0.1.0-20140512
+	 * @param edges The message, with all edges taken.
+	 * @param start The time the message started at.
+	 * @param loopLimit The time after {@link #signalOrigin} after which 
+	 * loops are not started.
+	 * @return The time the next loop of the message starts at, 
+	 * or -1 if it does not loop again.
 	 */
-	static private class MorseSignalTask extends TimerTask {		
-		protected boolean isOnSignal = false;
-		protected OnSignalListener onSignalListener = null;
-		public MorseSignalTask(boolean on, OnSignalListener onSignalListener) {
-			this.isOnSignal = on;
-			this.onSignalListener = onSignalListener;
+	private long nextLoopTime(MorseEdgeStream edges, long start, long loopLimit) {
+		final long end = start + edges.getDuration() * unitTime * NANOS_PER_MILLI;
+		if (loopMessage && edges.canRewind() && end - signalOrigin < loopLimit){
+			//keep looping if set true; readers are sent once.
+			return end + morseLoopMessageInterval * NANOS_PER_MILLI;
 		}
-		@Override
-		public void run() {
-			if (isOnSignal){
-				onSignalListener.onSignalStart();
-			} else {
-				onSignalListener.onSignalEnd();
-			}
+		return -1;
+	}
+	
+	/** Records the edge's lateness and sends the signal start to the current 
+	 * signal listener, if any.
+	 * @param deadline The time the signal was scheduled for.
+	 * @param lateness The time the signal was sent after it was due. 
+	 * @param duration The length of the signal in nanoseconds.
+	 * @param nextTime The time the next signal starts at, or -1. */
+	private void dispatchStart(long deadline, long lateness, long duration, long nextTime) {
+		edgeJitter.record(lateness);
+		signalTime = deadline - signalOrigin;
+		final OnTimedSignalListener listener = m_SignalListener;
+		if (listener != null){
+			listener.onSignalStart(deadline, duration, nextTime);
+		}
+	}
+	
+	/** Records the edge's lateness and sends the signal end to the current 
+	 * signal listener, if any.
+	 * @param deadline The time the signal end was scheduled for.
+	 * @param lateness The time the signal end was sent after it was due. 
+	 * @param nextTime The time the next signal starts at, or -1. */
+	private void dispatchEnd(long deadline, long lateness, long nextTime) {
+		edgeJitter.record(lateness);
+		signalTime = deadline - signalOrigin;
+		final OnTimedSignalListener listener = m_SignalListener;
+		if (listener != null){
+			listener.onSignalEnd(deadline, nextTime);
 		}
 	}
 		
@@ -353,86 +723,84 @@ public class MorseTranscriber implements IMorseTranscriber {
 	/// Internal runnable
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	
-	/** Defines how to parse the message into morse. 
-	 * @throws IllegalThreadStateException If attempted to run twice. */
-	private Runnable morseParser = new Runnable() {
-		@Override
-		public void run() {
-			//if running, bad state.
-			if (continueMessageProcessing){
-				throw new IllegalThreadStateException(
-						"Cannot start already running task");
+	/**
+	 * The state of one message or live keying session, from its start until
+	 * it ends or is cancelled. Every start has its own, so a session still 
+	 * finishing on the worker only ever ends itself.
+	 */
+	private class Playback implements Runnable {
+		/** The characters typed but not yet sent, if live keying. */
+		final private ArrayBlockingQueue<MorseCharacter> liveQueue;
+		/** Whether the session has been cancelled. */
+		volatile private boolean cancelled = false;
+		/** Whether the session has ended, or will never run. Once set, the 
+		 * session no longer writes the transcriber's state. */
+		volatile private boolean finished = false;
+		/** Whether the session has begun on the worker. Guarded by this. */
+		private boolean started = false;
+		/** The task on the worker, once submitted. Guarded by this. */
+		private Future<?> task = null;
+		
+		/** @param live <code>true</code> for live keying, 
+		 * <code>false</code> to send the message. */
+		public Playback(boolean live) {
+			this.liveQueue = live ? 
+					new ArrayBlockingQueue<MorseCharacter>(LIVE_QUEUE_SIZE) : null;
+		}
+		
+		/** @return <code>true</code> if neither ended nor cancelled. */
+		public boolean isActive() {
+			return !cancelled && !finished;
+		}
+		
+		/** @return <code>true</code> if live keying. */
+		public boolean isLive() {
+			return liveQueue != null;
+		}
+		
+		/** @param task The task on the worker; cancelled if this already is. */
+		synchronized public void setTask(Future<?> task) {
+			this.task = task;
+			if (cancelled){
+				task.cancel(true);
 			}
-			continueMessageProcessing = true;
-			final List<ArrayList<MorseCharacter>> message = 
-					new ArrayList<ArrayList<MorseCharacter>>();		
-			
-			synchronized (messageList) {
-				final int SIZE  = messageList.length;				
-				for (int index = 0; index < SIZE && continueMessageProcessing; index++) {
-					message.add(
-								(ArrayList<MorseCharacter>) 
-								wordToMorse(messageList[index])
-							);
-				}
+		}
+		
+		/** Cancels the session, waking it from any wait. */
+		synchronized public void cancel() {
+			cancelled = true;
+			if (task != null){
+				task.cancel(true);
 			}
-			if (m_MorseListener != null){
-				m_MorseListener.onMorseParsed();
+			if (!started){
+				//never runs; nothing to wait for.
+				finished = true;
 			}
-			
-			
-			Date delay = new Date();
-			offsetTime(delay, messagePadTime);
-			signalTimer.schedule(new TimerTask() {						
-				@Override
-				public void run() { sendMorseMessage(message);}
-			}, delay);					
-		}
-		/**
-		 * Sends the morse message.
-		 * @param message The message to send via parseMorseWord.
-		 */
-		private void sendMorseMessage(final List<ArrayList<MorseCharacter>> message) {
-			synchronized (signalTimer) {
-				messageIsSending = true;
-				if (!continueMessageProcessing){
-					//we have finished
-					messageIsSending = false;
-					
-					if (m_MorseListener != null){
-						m_MorseListener.onMorseCompleted();
-					}
+		}
+		
+		@Override
+		public void run() {
+			synchronized (this) {
+				if (cancelled){
+					finished = true;
 					return;
 				}
-				
-				final int SIZE2 = message.size();
-				Date start = new Date();				
-				for (int 	index = 0; 
-							index < SIZE2 && continueMessageProcessing; 
-							index++) {
-					parseMorseWord(start, message.get(index));
-					//if not the last word of the message.
-					if(index + 1 < SIZE2){
-						//offset by a word interval
-						offsetTime(start, morseWordInterval * (index+1));
-					}
-				}				
-				
-				if (loopMessage){
-					//keep looping if set true.
-					offsetTime(start, morseLoopMessageInterval);					
+				started = true;
+			}
+			try {
+				awaitOutputReady();
+				if (isLive()){
+					playLive(this);
 				} else {
-					//if not looping, no more processing.
-					continueMessageProcessing = false;	
-					offsetTime(start, messagePadTime);
+					playMessage(this, scheduler, Long.MAX_VALUE);
 				}
-				signalTimer.schedule(new TimerTask() {						
-					@Override
-					public void run() { sendMorseMessage(message);}
-				}, start);
+			} catch (InterruptedException e){
+				//cancelled; exit quietly.
+			} finally {
+				finished = true;
 			}
 		}
-	};
+	}
 	
 	/////////////////////////////////////////////////////////////////////////////////////////////////
 	/// Internal Listener interfaces
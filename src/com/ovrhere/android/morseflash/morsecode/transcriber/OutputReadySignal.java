@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.transcriber;
+
+/**
+ * Signals when an output is ready to send, such as a camera that is being
+ * opened in the background. The {@link MorseTranscriber} waits for it 
+ * before starting each message so the first signal is not delayed by the
+ * output.
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public interface OutputReadySignal {
+	/**
+	 * Waits for the output to be ready. Returns immediately if it is 
+	 * ready or is not being readied.
+	 * @param timeout The longest time to wait in milliseconds.
+	 * @return <code>true</code> if the output is ready, 
+	 * <code>false</code> if it timed out or the output is not available.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public boolean awaitReady(long timeout) throws InterruptedException;
+}
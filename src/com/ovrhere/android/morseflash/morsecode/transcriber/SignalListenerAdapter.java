@@ -0,0 +1,55 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.transcriber;
+
+import com.ovrhere.android.morseflash.morsecode.transcriber.IMorseTranscriber.OnSignalListener;
+import com.ovrhere.android.morseflash.morsecode.transcriber.IMorseTranscriber.OnTimedSignalListener;
+
+/**
+ * Adapts an {@link OnSignalListener} to an {@link OnTimedSignalListener},
+ * dropping the times. Requires signal ends to be sent.
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public class SignalListenerAdapter implements OnTimedSignalListener {
+	/** The listener to forward signals to. */
+	final private OnSignalListener signalListener;
+	
+	/** @param signalListener The listener to forward signals to. 
+	 * Cannot be <code>null</code>. */
+	public SignalListenerAdapter(OnSignalListener signalListener) {
+		if (signalListener == null){
+			throw new NullPointerException("Listener cannot be null");
+		}
+		this.signalListener = signalListener;
+	}
+	
+	/** @return The listener signals are forwarded to. */
+	public OnSignalListener getSignalListener() {
+		return signalListener;
+	}
+	
+	@Override
+	public void onSignalStart(long time, long duration, long nextTime) {
+		signalListener.onSignalStart();
+	}
+	
+	@Override
+	public void onSignalEnd(long time, long nextTime) {
+		signalListener.onSignalEnd();
+	}
+}
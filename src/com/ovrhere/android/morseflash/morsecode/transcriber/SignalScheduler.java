@@ -0,0 +1,40 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.transcriber;
+
+/**
+ * The clock and waiting strategy used by {@link MorseTranscriber} to play
+ * signals. Deadlines are absolute times on the scheduler's own clock, so
+ * callers should compute each deadline from the start of the message rather
+ * than from the previous signal.
+ *
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ * @see MonotonicSignalScheduler
+ * @see TimerSignalScheduler
+ */
+public interface SignalScheduler {
+	/** @return The current time of this scheduler's clock in nanoseconds.
+	 * Only meaningful relative to other values returned by this scheduler. */
+	public long nanoTime();
+
+	/** Blocks the calling thread until the scheduler's clock reaches the
+	 * deadline. Returns immediately if the deadline has passed.
+	 * @param deadline The time to wait for, as per {@link #nanoTime()}.
+	 * @throws InterruptedException If the thread is interrupted while waiting,
+	 * such as when the transcriber is cancelled.	 */
+	public void awaitUntil(long deadline) throws InterruptedException;
+}
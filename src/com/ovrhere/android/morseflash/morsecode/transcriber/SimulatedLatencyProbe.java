@@ -0,0 +1,76 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.transcriber;
+
+import java.util.Random;
+
+/**
+ * A simulated output with fixed latencies plus random jitter, such as for
+ * exercising a {@link LatencyCalibrator} or a {@link LatencyProfile} 
+ * offline. Measuring does not wait. Not thread safe.
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public class SimulatedLatencyProbe implements LatencyProbe {
+	/** The simulated latencies. */
+	final private LatencyProfile profile;
+	/** The largest jitter either side of the latency, in nanoseconds. */
+	final private long jitter;
+	/** The fraction of changes that are not observed. */
+	final private double missRate;
+	/** The source of jitter and misses. */
+	final private Random random;
+	
+	/**
+	 * @param profile The latencies of the simulated output.
+	 * @param jitter The largest random jitter either side of the latencies,
+	 * in nanoseconds. Must be >= 0.
+	 * @param missRate The fraction of changes that are not observed,
+	 * between 0 and 1.
+	 * @param seed The random seed, so that runs can be repeated.
+	 */
+	public SimulatedLatencyProbe(LatencyProfile profile, long jitter, 
+			double missRate, long seed) {
+		if (jitter < 0){
+			throw new IllegalArgumentException("Jitter cannot be < 0");
+		}
+		if (missRate < 0 || missRate > 1){
+			throw new IllegalArgumentException("Miss rate must be between 0 and 1");
+		}
+		this.profile = profile;
+		this.jitter = jitter;
+		this.missRate = missRate;
+		this.random = new Random(seed);
+	}
+	
+	/**
+	 * Gives the simulated latency of a change, whether or not observed.
+	 * @param on <code>true</code> for turning on, <code>false</code> for off.
+	 * @return The latency in nanoseconds.
+	 */
+	public long nextLatency(boolean on) {
+		final long offset = jitter == 0 ? 0 : 
+				(long) ((random.nextDouble() * 2 - 1) * jitter);
+		return Math.max(0, profile.getLatency(on) + offset);
+	}
+	
+	@Override
+	public long measure(boolean on) {
+		final long latency = nextLatency(on);
+		return random.nextDouble() < missRate ? -1 : latency;
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.transcriber;
+
+import java.util.Date;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * <p>A {@link SignalScheduler} that behaves as the transcriber originally did:
+ * each deadline is scheduled as a wall-clock {@link Date} on a 
+ * {@link java.util.Timer}. As such it is subject to millisecond granularity
+ * and to changes of the system clock: {@link #nanoTime()} is taken from
+ * {@link System#currentTimeMillis()}, so if the clock is set during a 
+ * message, the remaining signals are sent early or late by the change.
+ * Kept for comparing jitter between schedulers.</p>
+ * 
+ * <p>As timer tasks cannot be rescheduled, each wait allocates one; 
+ * prefer {@link MonotonicSignalScheduler} for long-running messages.
+ * The timer runs on a daemon thread, so an unreleased scheduler does not
+ * keep the process alive; {@link #release()} ends it sooner.</p>
+ *
+ * @author Jason J.
+ * @version 0.1.2-20261017
+ */
+public class TimerSignalScheduler implements SignalScheduler {
+	/** Nanoseconds per millisecond. */
+	final static private long NANOS_PER_MILLI = 1000000L;
+	
+	/** The timer to schedule deadlines on. Created lazily. */
+	private Timer signalTimer = null;
+	
+	/** @return The wall-clock time in nanoseconds, in steps of a 
+	 * millisecond. Jumps when the system clock is set. */
+	@Override
+	public long nanoTime() {
+		return System.currentTimeMillis() * NANOS_PER_MILLI;
+	}
+
+	@Override
+	public void awaitUntil(long deadline) throws InterruptedException {
+		final WakeTask wakeTask = new WakeTask();
+		synchronized (this) {
+			if (signalTimer == null){
+				//daemon, as nothing may release it.
+				signalTimer = new Timer(true);
+			}
+			signalTimer.schedule(wakeTask, new Date(deadline / NANOS_PER_MILLI));
+		}
+		try {
+			wakeTask.await();
+		} catch (InterruptedException e){
+			wakeTask.cancel();
+			throw e;
+		}
+	}
+	
+	/** Cancels the timer thread. The next wait will create a new one. */
+	synchronized public void release() {
+		if (signalTimer != null){
+			signalTimer.cancel();
+			signalTimer = null;
+		}
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Internal classes
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Wakes the waiting thread when run.
+	 * @version 0.1.0-20261017 */
+	static private class WakeTask extends TimerTask {
+		/** Whether the task has run. Guarded by this. */
+		private boolean done = false;
+		@Override
+		synchronized public void run() {
+			done = true;
+			notifyAll();
+		}
+		/** Waits until the task has run. */
+		synchronized public void await() throws InterruptedException {
+			while (!done){
+				wait();
+			}
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.morsecode.transcriber;
+
+/**
+ * A {@link SignalScheduler} on a controllable, virtual clock. 
+ * Waiting never blocks; the clock simply jumps forward to the deadline.
+ * Useful for verifying schedules without waiting in real time.
+ *
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public class VirtualSignalScheduler implements SignalScheduler {
+	/** The current virtual time in nanoseconds. */
+	volatile private long time = 0;
+	
+	public VirtualSignalScheduler() {}
+	
+	/** @param startTime The initial virtual time in nanoseconds. */
+	public VirtualSignalScheduler(long startTime) {
+		this.time = startTime;
+	}
+	
+	@Override
+	public long nanoTime() {
+		return time;
+	}
+
+	@Override
+	public void awaitUntil(long deadline) throws InterruptedException {
+		if (Thread.interrupted()){
+			throw new InterruptedException();
+		}
+		if (deadline > time){
+			time = deadline;
+		}
+	}
+	
+	/** Moves the virtual clock forward.
+	 * @param nanos The nanoseconds to advance by. Must be >= 0.	 */
+	public void advance(long nanos) {
+		if (nanos < 0){
+			throw new IllegalArgumentException("Cannot advance by < 0");
+		}
+		time += nanos;
+	}
+}
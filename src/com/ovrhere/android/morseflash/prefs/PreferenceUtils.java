@@ -25,7 +25,7 @@ import android.content.res.Resources;
  * Preference Utility for handling the preferences and the preference container.
  * Has ability to set defaults.
  * @author Jason J.
- * @version 0.2.0-20140606
+ * @version 0.3.0-20261017
  */
 public class PreferenceUtils {
 	/* The class name. */
@@ -87,6 +87,30 @@ public class PreferenceUtils {
 				r.getString(R.string.com_ovrhere_morseflash_pref_KEY_USE_CAMERA_FLASH),
 				r.getBoolean(R.bool.com_ovrhere_morseflash_pref_VALUE_USE_CAMERA_FLASH)
 				);
+		prefEdit.putBoolean(
+				r.getString(R.string.com_ovrhere_morseflash_pref_KEY_USE_AUDIO_TONE),
+				r.getBoolean(R.bool.com_ovrhere_morseflash_pref_VALUE_USE_AUDIO_TONE)
+				);
+		prefEdit.putBoolean(
+				r.getString(R.string.com_ovrhere_morseflash_pref_KEY_LIVE_KEYING),
+				r.getBoolean(R.bool.com_ovrhere_morseflash_pref_VALUE_LIVE_KEYING)
+				);
+		prefEdit.putInt(
+				r.getString(R.string.com_ovrhere_morseflash_pref_KEY_LED_ON_LATENCY),
+				r.getInteger(R.integer.com_ovrhere_morseflash_pref_VALUE_LED_ON_LATENCY)
+				);
+		prefEdit.putInt(
+				r.getString(R.string.com_ovrhere_morseflash_pref_KEY_LED_OFF_LATENCY),
+				r.getInteger(R.integer.com_ovrhere_morseflash_pref_VALUE_LED_OFF_LATENCY)
+				);
+		prefEdit.putInt(
+				r.getString(R.string.com_ovrhere_morseflash_pref_KEY_SCREEN_ON_LATENCY),
+				r.getInteger(R.integer.com_ovrhere_morseflash_pref_VALUE_SCREEN_ON_LATENCY)
+				);
+		prefEdit.putInt(
+				r.getString(R.string.com_ovrhere_morseflash_pref_KEY_SCREEN_OFF_LATENCY),
+				r.getInteger(R.integer.com_ovrhere_morseflash_pref_VALUE_SCREEN_OFF_LATENCY)
+				);
 		//first run has completed.
 		prefEdit.putBoolean(KEY_PREFERENCES_SET, VALUE_PREFERENCES_SET);
 	}		
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.torch;
+
+/**
+ * A {@link TorchCamera} without hardware, for measuring the per-edge cost 
+ * of a {@link TorchDriver}. Counts the camera calls made and may spend a
+ * fixed time in each, to stand in for the camera service. Not thread safe.
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public class FakeTorchCamera implements TorchCamera<FakeTorchCamera.Parameters> {
+	/** The time each camera call takes in nanoseconds. */
+	final private long callTime;
+	/** Whether the fake has a torch mode. */
+	final private boolean hasTorch;
+	
+	/** The flash mode last applied. */
+	private String flashMode = Parameters.FLASH_MODE_OFF;
+	/** Whether the preview is running. */
+	private boolean previewing = false;
+	/** The number of camera calls made. */
+	private long calls = 0;
+	/** The number of times the flash has been turned on or fired. */
+	private long flashes = 0;
+	
+	/** Creates a fake with a torch mode and instant calls. */
+	public FakeTorchCamera() {
+		this(0, true);
+	}
+	
+	/**
+	 * @param callTime The time each camera call takes in nanoseconds. 
+	 * Must be >= 0.
+	 * @param hasTorch <code>true</code> to support torch mode, 
+	 * <code>false</code> to require the flash be fired.
+	 */
+	public FakeTorchCamera(long callTime, boolean hasTorch) {
+		if (callTime < 0){
+			throw new IllegalArgumentException("Call time cannot be < 0");
+		}
+		this.callTime = callTime;
+		this.hasTorch = hasTorch;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Accessors
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** @return The number of camera calls made. */
+	public long getCallCount() {
+		return calls;
+	}
+	
+	/** @return The number of times the flash has been lit. */
+	public long getFlashCount() {
+		return flashes;
+	}
+	
+	/** @return <code>true</code> if the flash is lit as a torch, 
+	 * <code>false</code> otherwise. */
+	public boolean isLit() {
+		return previewing && Parameters.FLASH_MODE_TORCH.equals(flashMode);
+	}
+	
+	/** @return <code>true</code> if the preview is running, 
+	 * <code>false</code> otherwise. */
+	public boolean isPreviewing() {
+		return previewing;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Implemented interface
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	@Override
+	public Parameters getParameters() {
+		call();
+		return new Parameters(flashMode);
+	}
+	
+	@Override
+	public boolean setFlashMode(Parameters params, boolean on) {
+		if (!on){
+			params.flashMode = Parameters.FLASH_MODE_OFF;
+			return false;
+		}
+		params.flashMode = hasTorch ? Parameters.FLASH_MODE_TORCH : Parameters.FLASH_MODE_ON;
+		return hasTorch;
+	}
+	
+	@Override
+	public void setParameters(Parameters params) {
+		call();
+		if (previewing && !isLit() && 
+				Parameters.FLASH_MODE_TORCH.equals(params.flashMode)){
+			flashes++;
+		}
+		flashMode = params.flashMode;
+	}
+	
+	@Override
+	public void startPreview() {
+		call();
+		previewing = true;
+	}
+	
+	@Override
+	public void stopPreview() {
+		call();
+		previewing = false;
+	}
+	
+	@Override
+	public void fireFlash() {
+		call();
+		if (previewing && Parameters.FLASH_MODE_ON.equals(flashMode)){
+			flashes++;
+		}
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Helper functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Counts a call and spends its time. */
+	private void call() {
+		calls++;
+		if (callTime > 0){
+			final long end = System.nanoTime() + callTime;
+			while (System.nanoTime() < end){
+				//busy, as a binder call would be.
+			}
+		}
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Internal classes
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** A fake parameter set, holding only the flash mode. */
+	static public class Parameters {
+		/** The flash off. */
+		final static public String FLASH_MODE_OFF = "off";
+		/** The flash fired when focusing or taking a picture. */
+		final static public String FLASH_MODE_ON = "on";
+		/** The flash on continuously. */
+		final static public String FLASH_MODE_TORCH = "torch";
+		
+		/** The flash mode. */
+		private String flashMode;
+		
+		/** @param flashMode The flash mode. */
+		public Parameters(String flashMode) {
+			this.flashMode = flashMode;
+		}
+		
+		/** @return The flash mode. */
+		public String getFlashMode() {
+			return flashMode;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.torch;
+
+/**
+ * <p>A {@link TorchDriver} that builds its on and off parameter sets once
+ * when prepared and keeps the preview running until released. Each edge 
+ * then only applies the prepared parameter set for its state, and edges 
+ * that would not change the state are skipped.</p>
+ * 
+ * <p>Thread safe; edges may be sent from a different thread to the one that
+ * prepares and releases the driver. The camera itself is not opened or 
+ * released.</p>
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ * @param <P> The type of the camera's parameter sets.
+ */
+public class PreparedTorchDriver<P> implements TorchDriver {
+	/** The camera to drive. */
+	final private TorchCamera<P> camera;
+	/** The parameters with the flash on, once prepared. */
+	private P onParams = null;
+	/** The parameters with the flash off, once prepared. */
+	private P offParams = null;
+	/** Whether the flash stays lit without firing it. */
+	private boolean continuous = false;
+	/** Whether prepared. */
+	private boolean prepared = false;
+	/** Whether the torch is on. */
+	private boolean lit = false;
+	
+	/** @param camera The camera to drive. */
+	public PreparedTorchDriver(TorchCamera<P> camera) {
+		this.camera = camera;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Action functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	@Override
+	synchronized public boolean prepare() {
+		if (prepared){
+			return true;
+		}
+		try {
+			final P on = camera.getParameters();
+			final boolean continuous = camera.setFlashMode(on, true);
+			final P off = camera.getParameters();
+			camera.setFlashMode(off, false);
+			camera.setParameters(off);
+			camera.startPreview();
+			this.onParams = on;
+			this.offParams = off;
+			this.continuous = continuous;
+		} catch (RuntimeException e){
+			//camera failed or not connected.
+			return false;
+		}
+		lit = false;
+		prepared = true;
+		return true;
+	}
+	
+	@Override
+	synchronized public boolean isPrepared() {
+		return prepared;
+	}
+	
+	@Override
+	synchronized public void setTorch(boolean on) throws IllegalStateException {
+		if (!prepared){
+			throw new IllegalStateException("Torch is not prepared");
+		}
+		if (on == lit && (continuous || !on)){
+			return;
+		}
+		camera.setParameters(on ? onParams : offParams);
+		if (on && !continuous){
+			camera.fireFlash();
+		}
+		lit = on;
+	}
+	
+	@Override
+	synchronized public void release() {
+		if (!prepared){
+			return;
+		}
+		prepared = false;
+		try {
+			if (lit){
+				camera.setParameters(offParams);
+			}
+			camera.stopPreview();
+		} catch (RuntimeException e){
+			//already released elsewhere.
+		}
+		lit = false;
+		onParams = offParams = null;
+	}
+}
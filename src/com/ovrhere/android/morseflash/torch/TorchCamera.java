@@ -0,0 +1,52 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.torch;
+
+/**
+ * The camera operations needed to drive its flash as a torch, so that
+ * {@link PreparedTorchDriver} can be used with a real camera or a 
+ * {@link FakeTorchCamera}.
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ * @param <P> The type of the camera's parameter sets.
+ */
+public interface TorchCamera<P> {
+	/** @return A new copy of the camera's current parameters. */
+	public P getParameters();
+	
+	/** Sets the flash mode of a parameter set, without applying it.
+	 * @param params The parameter set to change.
+	 * @param on <code>true</code> for the flash on, <code>false</code> for off.
+	 * @return <code>true</code> if the flash stays lit while the parameters
+	 * are applied, <code>false</code> if it must also be fired with 
+	 * {@link #fireFlash()}. Ignored when off.	 */
+	public boolean setFlashMode(P params, boolean on);
+	
+	/** Applies a parameter set to the camera.
+	 * @param params The parameters to apply.	 */
+	public void setParameters(P params);
+	
+	/** Starts the camera preview, which some devices require for the flash. */
+	public void startPreview();
+	
+	/** Stops the camera preview. */
+	public void stopPreview();
+	
+	/** Fires the flash on devices without a torch mode, such as by 
+	 * focusing. */
+	public void fireFlash();
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.torch;
+
+/**
+ * Switches a torch, such as the camera flash LED, on and off for each 
+ * signal. Drivers do their expensive set up in {@link #prepare()} so that
+ * each {@link #setTorch(boolean)} is as cheap as the hardware allows.
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public interface TorchDriver {
+	/** Prepares the torch to be switched; does nothing if prepared.
+	 * @return <code>true</code> if prepared, <code>false</code> if the 
+	 * torch is not available.	 */
+	public boolean prepare();
+	
+	/** @return <code>true</code> if prepared, <code>false</code> otherwise. */
+	public boolean isPrepared();
+	
+	/** Switches the torch.
+	 * @param on <code>true</code> to turn the torch on, 
+	 * <code>false</code> to turn it off.
+	 * @throws IllegalStateException If not prepared.	 */
+	public void setTorch(boolean on) throws IllegalStateException;
+	
+	/** Turns the torch off and undoes the preparation; 
+	 * it may be prepared again. */
+	public void release();
+}
@@ -15,6 +15,8 @@
  */
 package com.ovrhere.android.morseflash.ui;
 
+import java.io.IOException;
+
 import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
@@ -25,21 +27,24 @@ import android.view.Menu;
 import android.view.MenuItem;
 import android.view.Window;
 import android.view.WindowManager;
+import android.widget.Toast;
 
 import com.ovrhere.android.morseflash.R;
 import com.ovrhere.android.morseflash.morsecode.dictionaries.InternationalMorseCode;
+import com.ovrhere.android.morseflash.morsecode.transcriber.LatencyProfile;
 import com.ovrhere.android.morseflash.morsecode.transcriber.MorseTranscriber;
 import com.ovrhere.android.morseflash.morsecode.transcriber.MorseTranscriberHeadlessFragment;
 import com.ovrhere.android.morseflash.prefs.PreferenceUtils;
 import com.ovrhere.android.morseflash.ui.fragments.MainFragment;
 import com.ovrhere.android.morseflash.ui.fragments.ScreenFlashFragment;
+import com.ovrhere.android.morseflash.utils.AudioToneUtil;
 import com.ovrhere.android.morseflash.utils.CameraFlashUtil;
 
 /**
  * The main activity for the application. This is the primary entry point
  * of the app.
  * @author Jason J.
- * @version 0.5.4-20140719
+ * @version 0.7.7-20261017
  */
 public class MainActivity extends ActionBarActivity implements
 	MainFragment.OnFragmentInteractionListener,
@@ -79,6 +84,8 @@ public class MainActivity extends ActionBarActivity implements
 	/** The reference to the camera flash util to flash light. 
 	 * Should be destroyed in onPause. */
 	private CameraFlashUtil maincameraFlashUtil = null;
+	/** The tone player for sending the message as audio. */
+	final private AudioToneUtil audioToneUtil = new AudioToneUtil();
 	
 	/** The current fragment tag. Top level is {@link MainFragment#TAG}. 
 	 * Default empty string.*/
@@ -89,6 +96,13 @@ public class MainActivity extends ActionBarActivity implements
 	private String inputMessage = "";
 	/** If the message is being sent by flash light. */
 	private boolean isMessageByFlashLight = false;
+	/** If the message is being sent by audio tone. */
+	private boolean isMessageByAudio = false;
+	/** If characters are being sent as they are typed. */
+	private boolean isLiveKeying = false;
+	/** Reports characters that could not be sent in live keying. 
+	 * Reused so fast typing does not queue a toast per character. */
+	private Toast droppedCharacterToast = null;
 	/** If the message is currently being sent. Set <code>true</code> in
 	 * {@link #onSendButton(String)} and <code>false</code> in 
 	 * {@link #onCancelButton()}.	 */
@@ -102,6 +116,11 @@ public class MainActivity extends ActionBarActivity implements
 	
 	/** The reference to shared preferences for the application. */
 	private SharedPreferences prefs = null;
+	
+	/** Turns the screen flash on. Reused so signals do not allocate. */
+	final private Runnable screenFlashOn = new ScreenFlashAction(true);
+	/** Turns the screen flash off. Reused so signals do not allocate. */
+	final private Runnable screenFlashOff = new ScreenFlashAction(false);
 	/////////////////////////////////////////////////////////////////////////////////////////////////
 	/// End members
 	////////////////////////////////////////////////////////////////////////////////////////////////
@@ -168,6 +187,7 @@ public class MainActivity extends ActionBarActivity implements
 			morseTranscriber.setOnSignalListener(null);
 			morseTranscriber.cancel();
 		}
+		audioToneUtil.stop();
 	}
 
 	@Override
@@ -341,22 +361,18 @@ public class MainActivity extends ActionBarActivity implements
 			} catch (IllegalStateException e){}
 			
 		} else {
-			MainActivity.this.runOnUiThread(new Runnable(){
-			    public void run(){
-			    	if (flashFrag != null){
-			    		synchronized (flashFrag) {
-			    			if (flashFrag != null) flashFrag.flashBackground(state);
-			    		}
-			    	}
-			    }
-			});
-			
+			MainActivity.this.runOnUiThread(state ? screenFlashOn : screenFlashOff);
 		}		
 	}
 	/** Ends the message and returns to starting state. */
 	private void endMessage(){
+		if (!isMessageByAudio){
+			Log.d(CLASS_NAME, (isMessageByFlashLight ? "LED" : "screen") + 
+					" edge timing: " + morseTranscriber.getEdgeJitter());
+		}
 		morseTranscriber.cancel();
-		if (!isMessageByFlashLight){
+		audioToneUtil.stop();
+		if (!isMessageByFlashLight && !isMessageByAudio){
 			MainActivity.this.runOnUiThread(new Runnable(){
 			    public void run(){
 			    	startFlashFrag(false);
@@ -383,6 +399,38 @@ public class MainActivity extends ActionBarActivity implements
 		return prefs.getBoolean(getResources().getString(boolKeyId), false);
 	}
 	
+	/** Gets an output's latency from its preferences, in microseconds. 
+	 * Default values are 0. Nothing writes these preferences until there 
+	 * is an on-device latency probe, so this is currently always 
+	 * {@link LatencyProfile#NONE}. */
+	private LatencyProfile getLatencyPref(int onKeyId, int offKeyId) {
+		final long onLatency = prefs.getInt(getResources().getString(onKeyId), 0);
+		final long offLatency = prefs.getInt(getResources().getString(offKeyId), 0);
+		return new LatencyProfile(Math.max(0, onLatency) * 1000L, 
+				Math.max(0, offLatency) * 1000L);
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Internal classes
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Sets the screen flash state on the UI thread. */
+	private class ScreenFlashAction implements Runnable {
+		/** The state to set. */
+		final private boolean state;
+		public ScreenFlashAction(boolean state) {
+			this.state = state;
+		}
+		@Override
+		public void run(){
+			if (flashFrag != null){
+				synchronized (flashFrag) {
+					if (flashFrag != null) flashFrag.flashBackground(state);
+				}
+			}
+		}
+	}
+	
 	/////////////////////////////////////////////////////////////////////////////////////////////////
 	/// Implemented listeners
 	////////////////////////////////////////////////////////////////////////////////////////////////
@@ -402,19 +450,57 @@ public class MainActivity extends ActionBarActivity implements
 				getBoolPref(R.string.com_ovrhere_morseflash_pref_KEY_LOOP_MESSAGE);
 		isMessageByFlashLight = 
 				getBoolPref(R.string.com_ovrhere_morseflash_pref_KEY_USE_CAMERA_FLASH);
+		isMessageByAudio = 
+				getBoolPref(R.string.com_ovrhere_morseflash_pref_KEY_USE_AUDIO_TONE);
+		isLiveKeying = !isMessageByAudio && isMessageByFlashLight &&
+				getBoolPref(R.string.com_ovrhere_morseflash_pref_KEY_LIVE_KEYING);
 		isSending = true;
 		
 		morseTranscriber.setMessage(message);
 		morseTranscriber.setLoop(loop);
+		morseTranscriber.setLatencyProfile(isMessageByFlashLight ?
+				getLatencyPref(R.string.com_ovrhere_morseflash_pref_KEY_LED_ON_LATENCY,
+						R.string.com_ovrhere_morseflash_pref_KEY_LED_OFF_LATENCY) :
+				getLatencyPref(R.string.com_ovrhere_morseflash_pref_KEY_SCREEN_ON_LATENCY,
+						R.string.com_ovrhere_morseflash_pref_KEY_SCREEN_OFF_LATENCY));
+		//the camera may still be readying in the background.
+		morseTranscriber.setOutputReadySignal(
+				isMessageByFlashLight ? maincameraFlashUtil : null);
 		inputMessage = message;
 		
-		if (!isMessageByFlashLight){
+		if (isMessageByAudio){
+			//audio is rendered from the message, not the transcriber's signals.
+			isMessageByFlashLight = false;
+			audioToneUtil.play(morseTranscriber, this);
+		} else if (!isMessageByFlashLight){
 			startFlashFrag(true);
+		} else if (isLiveKeying){
+			//the typed message is sent first; only new keystrokes are queued.
+			if (morseTranscriber.startLive() && message.length() > 0 &&
+					Character.isWhitespace(message.charAt(message.length() - 1))){
+				morseTranscriber.type(' ');
+			}
 		} else {
 			morseTranscriber.start();
 		}
 	}
 	
+	@Override
+	public void onLiveCharacter(char character) {
+		if (isSending && isLiveKeying && !morseTranscriber.type(character)){
+			//unsupported or typed faster than it can be sent.
+			Log.w(CLASS_NAME, "Live character not sent: " + character);
+			final String text = 
+					getString(R.string.com_ovrhere_toast_liveCharacterDropped, character);
+			if (droppedCharacterToast == null){
+				droppedCharacterToast = Toast.makeText(this, text, Toast.LENGTH_SHORT);
+			} else {
+				droppedCharacterToast.setText(text);
+			}
+			droppedCharacterToast.show();
+		}
+	}
+	
 	
 	@Override	@Deprecated
 	public void onSendButton(String message, boolean looped,
@@ -429,6 +515,7 @@ public class MainActivity extends ActionBarActivity implements
 		endMessage();
 		
 		if (currentFragmentTag.equals(MainFragment.TAG)){
+			isMessageByAudio = false;
 			if (isMessageByFlashLight){
 					isMessageByFlashLight = false;
 				try {
@@ -481,5 +568,11 @@ public class MainActivity extends ActionBarActivity implements
 		Log.d(CLASS_NAME, "message complete");
 		endMessage();		
 	}
+	
+	@Override
+	public void onMorseFailed(IOException error) {
+		Log.w(CLASS_NAME, "Message could not be read: " + error);
+		endMessage();
+	}
 
 }
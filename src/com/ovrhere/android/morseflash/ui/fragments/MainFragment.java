@@ -20,6 +20,8 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.SurfaceView;
@@ -42,7 +44,7 @@ import com.ovrhere.android.morseflash.utils.CameraFlashUtil;
  * The fragment for main. Activity must implement
  * {@link OnFragmentInteractionListener}.
  * 
- *  @version 0.5.1-20140821
+ *  @version 0.7.2-20261017
  *  @author Jason J.
  */
 public class MainFragment extends Fragment 
@@ -81,6 +83,10 @@ public class MainFragment extends Fragment
 	private CompoundButton cb_advancedSettings = null;
 	/** The checkbox to determine whether to use the camera flash or not. */
 	private CheckBox cb_useCamFlash  = null; 
+	/** The checkbox to determine whether to play the message as a tone. */
+	private CheckBox cb_useAudioTone = null;
+	/** The checkbox to determine whether to send characters as typed. */
+	private CheckBox cb_liveKeying = null;
 	
 	
 	/** Container view holding advanced options. Used to toggle visibility. */
@@ -184,6 +190,7 @@ public class MainFragment extends Fragment
 		super.onResume();
 		closeCameraFlashUtil();
 		initCameraFlashUtil(getView());
+		prepareCameraFlash();
 	}
 	
 	
@@ -211,11 +218,13 @@ public class MainFragment extends Fragment
 		prefs = PreferenceUtils.getPreferences(getActivity());
 		
 		initLoopCheckbox(rootView, prefs);
+		initAudioToneCheckbox(rootView, prefs);
 		initAdvancedContainerToggle(rootView);
 		
 		initCameraFlashUtil(rootView);		
 		
 		initCameraFlashCheckbox(rootView, cameraFlashUtil);
+		initLiveKeying(rootView, prefs);
 	}
 
 	/** Initialises the camera flash utility using the surface view. */
@@ -243,6 +252,56 @@ public class MainFragment extends Fragment
 			);
 	}
 
+	/** Initialises the audio tone checkbox. 
+	 * Assumes {@link #prefs} has been initialised. */
+	private void initAudioToneCheckbox(View rootView, SharedPreferences prefs) {
+		cb_useAudioTone = (CheckBox) 
+				rootView.findViewById(R.id.com_ovrhere_morseflash_frag_main_checkbox_audioTone);
+		cb_useAudioTone.setOnCheckedChangeListener(this);
+		cb_useAudioTone.setChecked(
+			prefs.getBoolean(
+					getResources().getString(
+							R.string.com_ovrhere_morseflash_pref_KEY_USE_AUDIO_TONE),
+							false)
+			);
+	}
+
+	/** Initialises the live keying checkbox and the input watcher which 
+	 * forwards typed characters. Assumes the camera flash checkbox
+	 * has been initialised. */
+	private void initLiveKeying(View rootView, SharedPreferences prefs) {
+		cb_liveKeying = (CheckBox) 
+				rootView.findViewById(R.id.com_ovrhere_morseflash_frag_main_checkbox_liveKeying);
+		cb_liveKeying.setOnCheckedChangeListener(this);
+		cb_liveKeying.setChecked(
+			prefs.getBoolean(
+					getResources().getString(
+							R.string.com_ovrhere_morseflash_pref_KEY_LIVE_KEYING),
+							false)
+			);
+		//live keying needs the screen for typing, so requires the camera flash.
+		cb_liveKeying.setEnabled(cb_useCamFlash.isChecked());
+		
+		et_messageInput.addTextChangedListener(new TextWatcher() {
+			@Override
+			public void onTextChanged(CharSequence s, int start, int before, int count) {
+				if (!isSendingMessage || !isLiveKeying()){
+					return;
+				}
+				//only newly added characters can be sent; replacements add the excess.
+				final int end = start + count;
+				for (int index = start + before; index < end; index++) {
+					mFragmentInteractionListener.onLiveCharacter(s.charAt(index));
+				}
+			}
+			@Override
+			public void beforeTextChanged(CharSequence s, int start, int count,
+					int after) {}
+			@Override
+			public void afterTextChanged(Editable s) {}
+		});
+	}
+
 	/** Initalises the advanced container and the toggle
 	 * responsible for displaying/hiding it. */
 	private void initAdvancedContainerToggle(View rootView) {
@@ -295,6 +354,23 @@ public class MainFragment extends Fragment
 		mFragmentInteractionListener.onUpdateCameraFlashUtil(null);
 	}
 	
+	/** Readies the camera flash in the background if it is to be used, 
+	 * so the first signal is not delayed by the camera. */
+	private void prepareCameraFlash() {
+		if (cameraFlashUtil != null && cb_useCamFlash != null && 
+				cb_useCamFlash.isChecked()){
+			cameraFlashUtil.prepareAsync();
+		}
+	}
+	
+	/** @return <code>true</code> if characters are sent as typed, 
+	 * <code>false</code> otherwise. Audio tones are rendered from the whole 
+	 * message, so take precedence as in the activity. */
+	private boolean isLiveKeying() {
+		return cb_liveKeying.isChecked() && cb_useCamFlash.isChecked() &&
+				!cb_useAudioTone.isChecked();
+	}
+	
 	/** Toggles visibility of advanced settings container based on bool passed.
 	 * @param show <code>true</code> to show container, 
 	 * <code>false</code> to hide.
@@ -326,9 +402,11 @@ public class MainFragment extends Fragment
 		b_sendMessage.setText(getResources().getString(stringId));
 		
 		b_sendMessage.postInvalidate(); //redraw
-		et_messageInput.setEnabled(!sending);
+		et_messageInput.setEnabled(!sending || isLiveKeying());
 		cb_useCamFlash.setEnabled(!sending);
 		cb_loopMessage.setEnabled(!sending);
+		cb_useAudioTone.setEnabled(!sending);
+		cb_liveKeying.setEnabled(!sending && cb_useCamFlash.isChecked());
 		isSendingMessage = sending;
 	}
 	
@@ -372,13 +450,15 @@ public class MainFragment extends Fragment
 				}
 				//prevent double taps
 				b_sendMessage.setEnabled(false);
-				if (cb_useCamFlash.isChecked()){						
+				if (cb_useCamFlash.isChecked() || cb_useAudioTone.isChecked()){						
 					//re-enable.
 					b_sendMessage.setEnabled(true);
 					setSendingMessage(true);
 				}
 				mFragmentInteractionListener.onSendButton(msg);
-				hideKeyboard();
+				if (!isLiveKeying()){
+					hideKeyboard();
+				}
 			}
 			
 			break;
@@ -398,6 +478,18 @@ public class MainFragment extends Fragment
 		case R.id.com_ovrhere_morseflash_frag_main_checkbox_useCameraLight:
 			setBoolPref(R.string.com_ovrhere_morseflash_pref_KEY_USE_CAMERA_FLASH, 
 					buttonView.isChecked());
+			if (cb_liveKeying != null){
+				cb_liveKeying.setEnabled(buttonView.isChecked());
+			}
+			prepareCameraFlash();
+			break;
+		case R.id.com_ovrhere_morseflash_frag_main_checkbox_liveKeying:
+			setBoolPref(R.string.com_ovrhere_morseflash_pref_KEY_LIVE_KEYING, 
+					buttonView.isChecked());
+			break;
+		case R.id.com_ovrhere_morseflash_frag_main_checkbox_audioTone:
+			setBoolPref(R.string.com_ovrhere_morseflash_pref_KEY_USE_AUDIO_TONE, 
+					buttonView.isChecked());
 			break;
 		case R.id.com_ovrhere_morseflash_frag_main_toggle_advanced:
 			showAdvancedSettings(buttonView.isChecked());
@@ -410,8 +502,9 @@ public class MainFragment extends Fragment
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	
 	/** The interface for fragment interactions. 
-	 * Currently account for : sendButton click, cancelButton click, CameraFlashUtil updates.
-	 * @version 0.2.0-20140606
+	 * Currently account for : sendButton click, cancelButton click, CameraFlashUtil updates,
+	 * live keying input.
+	 * @version 0.3.0-20261017
 	 * */ 
 	public interface OnFragmentInteractionListener {
 		/** Updates the camera flash util as soon as the fragment creates it.
@@ -434,6 +527,9 @@ public class MainFragment extends Fragment
 		/** The action to perform when the send button is sent. 
 		 * @param message The raw message to pass on. */
 		public void onSendButton(String message);
+		/** Sent for each character typed while sending with live keying.
+		 * @param character The character typed.  */
+		public void onLiveCharacter(char character);
 	}
 	 
 }
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.utils;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import android.util.Log;
+
+import com.ovrhere.android.morseflash.morsecode.audio.MorseToneRenderer;
+import com.ovrhere.android.morseflash.morsecode.transcriber.MorseEdgeStream;
+import com.ovrhere.android.morseflash.morsecode.transcriber.MorseTranscriber;
+
+/**
+ * <p>Plays the message of a {@link MorseTranscriber} as an audio tone, 
+ * alongside the screen and camera flash outputs. The message is rendered 
+ * by a {@link MorseToneRenderer} into an {@link AudioTrackSink} on a 
+ * background thread, so edge timing is set by the audio clock rather than 
+ * thread wake ups. Edges are taken from the message as they are rendered,
+ * so memory use does not depend on message length and messages set by 
+ * reader are played too.</p>
+ * 
+ * <p>The transcriber's message, unit time, pad time and looping are used;
+ * its signal listener is not called. Messages are played on a single worker 
+ * thread that is created on the first play, reused by later plays and 
+ * released after {@value #WORKER_KEEP_ALIVE}s idle. Call {@link #stop()} 
+ * when the activity is destroyed to release the audio device.</p>
+ * 
+ * @author Jason J.
+ * @version 0.2.1-20261017
+ */
+public class AudioToneUtil {
+	/** The Log tag. */
+	final static private String LOGTAG = AudioToneUtil.class.getSimpleName();
+	/** The time in seconds an idle worker thread is kept for. */
+	final static private int WORKER_KEEP_ALIVE = 30; //s
+	
+	/** The renderer. Only used by the worker. */
+	final private MorseToneRenderer renderer = 
+			new MorseToneRenderer(MorseToneRenderer.DEFAULT_SAMPLE_RATE,
+					MorseToneRenderer.DEFAULT_TONE_FREQUENCY, 1);
+	/** The worker rendering messages. Its thread is created on demand. */
+	final private ThreadPoolExecutor worker = new ThreadPoolExecutor(1, 1, 
+			WORKER_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+			new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, LOGTAG);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+	/** The current playback or <code>null</code>. */
+	private volatile TonePlayback playback = null;
+	
+	public AudioToneUtil() {
+		worker.allowCoreThreadTimeOut(true);
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Action functions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Starts playing the transcriber's current message, stopping any 
+	 * previous message. A message set by reader is taken from the transcriber.
+	 * @param transcriber The transcriber to take the message and timing from.
+	 * @param listener The listener to notify on parsing and completion, or
+	 * failure if a reader message could not be read, or <code>null</code>. 
+	 * Not notified of completion if stopped.
+	 * @return <code>true</code> if started, <code>false</code> if there is
+	 * nothing to play.
+	 */
+	public boolean play(MorseTranscriber transcriber, 
+			MorseTranscriber.OnTranscriptionListener listener) {
+		stop();
+		final MorseEdgeStream edges = transcriber.takeMessageEdges();
+		if (edges == null){
+			return false;
+		}
+		final TonePlayback next = new TonePlayback(edges, 
+				transcriber.getUnitTime(), transcriber.getPadTime(), 
+				transcriber.isMessageLooped() ? transcriber.getLoopInterval() : -1,
+				listener);
+		playback = next;
+		try {
+			worker.execute(next);
+		} catch (RejectedExecutionException e){
+			playback = null;
+			return false;
+		}
+		return true;
+	}
+	
+	/** Stops playing, if playing, and waits for the audio device to be released. */
+	public void stop() {
+		final TonePlayback current = playback;
+		playback = null;
+		if (current == null){
+			return;
+		}
+		current.cancel();
+		current.awaitFinished();
+	}
+	
+	/** @return <code>true</code> if playing, <code>false</code> otherwise. */
+	public boolean isPlaying() {
+		return playback != null;
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	/// Internal classes
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	
+	/** Renders one message to the audio device. */
+	private class TonePlayback implements Runnable {
+		final private MorseEdgeStream edges;
+		final private int unitTime;
+		final private int padTime;
+		/** The loop interval in units, or < 0 to play once. */
+		final private int loopInterval;
+		final private MorseTranscriber.OnTranscriptionListener listener;
+		/** Released once the playback has ended or been skipped. */
+		final private CountDownLatch finished = new CountDownLatch(1);
+		/** The thread running the playback, while it runs. Guarded by this. */
+		private Thread runner = null;
+		/** Whether the playback has been cancelled. Guarded by this. */
+		private boolean cancelled = false;
+		
+		public TonePlayback(MorseEdgeStream edges, int unitTime, int padTime,
+				int loopInterval, MorseTranscriber.OnTranscriptionListener listener) {
+			this.edges = edges;
+			this.unitTime = unitTime;
+			this.padTime = padTime;
+			this.loopInterval = loopInterval;
+			this.listener = listener;
+		}
+		
+		/** Ends the playback, interrupting it if running. */
+		synchronized public void cancel() {
+			cancelled = true;
+			if (runner != null){
+				runner.interrupt();
+			}
+		}
+		
+		/** Waits for the playback to end, unless called from the playback itself. */
+		public void awaitFinished() {
+			synchronized (this) {
+				if (runner == Thread.currentThread()){
+					return;
+				}
+			}
+			try {
+				finished.await();
+			} catch (InterruptedException e){
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		@Override
+		public void run() {
+			synchronized (this) {
+				if (cancelled){
+					finished.countDown();
+					return;
+				}
+				runner = Thread.currentThread();
+			}
+			boolean completed = false;
+			try {
+				completed = render();
+			} finally {
+				synchronized (this) {
+					runner = null;
+				}
+				finished.countDown();
+			}
+			if (playback == this){
+				playback = null;
+				if (completed && listener != null){
+					if (edges.getReadError() != null){
+						listener.onMorseFailed(edges.getReadError());
+					} else {
+						listener.onMorseCompleted();
+					}
+				}
+			}
+		}
+		
+		/** Renders the message, looping as required. 
+		 * @return <code>true</code> if completed, <code>false</code> if 
+		 * stopped or failed. */
+		private boolean render() {
+			AudioTrackSink sink = null;
+			try {
+				sink = new AudioTrackSink(renderer.getSampleRate());
+				renderer.setUnitTime(unitTime);
+				if (listener != null){
+					listener.onMorseParsed();
+				}
+				renderer.renderSilence(padTime, sink);
+				if (loopInterval < 0 || !edges.canRewind()){
+					//readers are played once.
+					renderer.render(edges, 0, sink);
+				} else {
+					while (true){
+						renderer.render(edges, loopInterval, sink);
+						edges.rewind();
+					}
+				}
+				renderer.renderSilence(padTime, sink);
+				if (edges.getReadError() != null){
+					Log.w(LOGTAG, "Message could not be read: " + edges.getReadError());
+				}
+				return true;
+			} catch (InterruptedException e){
+				if (sink != null){
+					sink.flush();
+				}
+			} catch (IOException e){
+				Log.w(LOGTAG, "Tone playback failed: " + e);
+			} finally {
+				if (sink != null){
+					try {
+						sink.close();
+					} catch (IOException e){
+						Log.w(LOGTAG, "Audio device could not be closed: " + e);
+					}
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.utils;
+
+import java.io.IOException;
+
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+
+import com.ovrhere.android.morseflash.morsecode.audio.PcmSink;
+
+/**
+ * A {@link PcmSink} playing mono 16-bit PCM through a streaming 
+ * {@link AudioTrack} on the music stream. Writes block while the device 
+ * buffer is full; playback starts with the first write.
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+public class AudioTrackSink implements PcmSink {
+	/** The minimum device buffer, in multiples of the platform minimum. */
+	final static private int BUFFER_MULTIPLIER = 2;
+	
+	/** The track being played to. */
+	final private AudioTrack audioTrack;
+	/** Whether play has been called. */
+	private boolean playing = false;
+	
+	/**
+	 * @param sampleRate The sample rate in Hz.
+	 * @throws IOException If the track cannot be initialised.
+	 */
+	public AudioTrackSink(int sampleRate) throws IOException {
+		final int minSize = AudioTrack.getMinBufferSize(sampleRate, 
+				AudioFormat.CHANNEL_OUT_MONO, AudioFormat.ENCODING_PCM_16BIT);
+		if (minSize <= 0){
+			throw new IOException("Unsupported sample rate: " + sampleRate);
+		}
+		audioTrack = new AudioTrack(AudioManager.STREAM_MUSIC, sampleRate, 
+				AudioFormat.CHANNEL_OUT_MONO, AudioFormat.ENCODING_PCM_16BIT, 
+				minSize * BUFFER_MULTIPLIER, AudioTrack.MODE_STREAM);
+		if (audioTrack.getState() != AudioTrack.STATE_INITIALIZED){
+			audioTrack.release();
+			throw new IOException("Audio track could not be initialised");
+		}
+	}
+	
+	@Override
+	public void write(short[] buffer, int count) throws IOException {
+		if (!playing){
+			audioTrack.play();
+			playing = true;
+		}
+		int written = 0;
+		while (written < count){
+			final int result = audioTrack.write(buffer, written, count - written);
+			if (result < 0){
+				throw new IOException("Audio track write failed: " + result);
+			}
+			written += result;
+		}
+	}
+	
+	/** Discards any samples not yet played. Call before {@link #close()} 
+	 * to end immediately. */
+	public void flush() {
+		if (playing){
+			audioTrack.pause();
+			audioTrack.flush();
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		try {
+			if (playing){
+				//in streaming mode, stop lets written samples finish.
+				audioTrack.stop();
+			}
+		} catch (IllegalStateException e){
+		} finally {
+			audioTrack.release();
+		}
+	}
+}
@@ -17,15 +17,24 @@ package com.ovrhere.android.morseflash.utils;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import android.hardware.Camera;
-import android.hardware.Camera.AutoFocusCallback;
 import android.hardware.Camera.Parameters;
 import android.util.Log;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 import android.view.View;
 
+import com.ovrhere.android.morseflash.morsecode.transcriber.OutputReadySignal;
+import com.ovrhere.android.morseflash.torch.PreparedTorchDriver;
+import com.ovrhere.android.morseflash.torch.TorchDriver;
+
 /**
  * <p>A camera flash utility class, designed to work with 
  * problematic devices. Requires there be a "visible" SurfaceView for the camera. 
@@ -51,30 +60,47 @@ import android.view.View;
  * <br/>&lt;uses-feature android:name="android.hardware.camera.flash" /&gt;
  *</code>
  * </p>
+ * <p>The flash is driven by a {@link PreparedTorchDriver}: the first 
+ * {@link #flashLed(boolean)} prepares the flash parameters and starts the 
+ * preview, after which each call only applies the prepared parameters.
+ * To keep this from delaying the first flash, call {@link #prepareAsync()}
+ * ahead of time; {@link #awaitReady(long)} waits for it to finish.</p>
  * @author Jason J.
- * @version 0.2.5-20140719
+ * @version 0.4.0-20261017
  */
-public class CameraFlashUtil implements SurfaceHolder.Callback {
+public class CameraFlashUtil implements SurfaceHolder.Callback, OutputReadySignal {
 	/** The Log tag. */
 	final static private String LOGTAG = CameraFlashUtil.class.getSimpleName();
-	
-	/** Dummy Autofocus callback for camera flash, see:
-	 *  http://stackoverflow.com/questions/5503480/use-camera-flashlight-in-android
-	 */
-	final static private AutoFocusCallback autoFocusCallback = new AutoFocusCallback() {
-        public void onAutoFocus(boolean success, Camera camera) {
-        }
-    };
+	/** The time in seconds an idle preparing thread is kept for. */
+	final static private int PREPARER_KEEP_ALIVE = 10; //s
 	
 	/** The surface holder in view. */
 	private SurfaceHolder mHolder = null;
 	/** The camera reference for turning on an off the flash. */
-	private Camera mCamera = null;
+	volatile private Camera mCamera = null;
+	/** The driver of the camera's flash, while the camera is open. */
+	volatile private TorchDriver torchDriver = null;
+	
+	/** Prepares the flash in the background. Its thread is created on demand. */
+	final private ThreadPoolExecutor preparer = new ThreadPoolExecutor(1, 1, 
+			PREPARER_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+			new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, LOGTAG);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+	/** Released when the last background preparation ends; 
+	 * <code>null</code> if there has been none. */
+	volatile private CountDownLatch readySignal = null;
 	
 	/** Whether or not the camera is active. Default is false. */
 	private boolean cameraActive = false;
 	
 	public CameraFlashUtil(SurfaceView surfaceView){
+		preparer.allowCoreThreadTimeOut(true);
 		_setCameraSurfaceView(surfaceView);
 	}
 	/**
@@ -148,39 +174,51 @@ public class CameraFlashUtil implements SurfaceHolder.Callback {
 			if (!cameraActive){
 				initCamera();
 			}
-			if (!cameraActive){ //if still not active.
+			if (!cameraActive || !torchDriver.prepare()){ //if still not active.
 				throw new IllegalStateException("Flash is not available");
 			}
-			
-			Parameters params = mCamera.getParameters();
-			if (on){
-				//Turn flash LED on.
-				params.setFlashMode(Parameters.FLASH_MODE_TORCH);
-				String flashMode = params.getFlashMode();
-				if (	flashMode != null &&
-						!flashMode.contains(Parameters.FLASH_MODE_TORCH)){
-					//if torch mode not supported.
-					params.setFlashMode(Parameters.FLASH_MODE_ON);
-				}
-				mCamera.setParameters(params);
-				mCamera.startPreview();
-				try{
-					mCamera.autoFocus(autoFocusCallback);
-				} catch (Exception e){
-					//TODO determine which exceptions, if any, throw here
-					Log.w(LOGTAG, "Exception during autofocus: " + e);
+			/* the camera is kept open and previewing for efficency but
+			 * requires the utility to close properly  */
+			torchDriver.setTorch(on);
+		}
+	}
+	/**
+	 * Opens the camera if needed, starts the preview and prepares the flash
+	 * on a background thread, so that the first {@link #flashLed(boolean)} is
+	 * not delayed. Returns immediately.
+	 * @see #awaitReady(long)
+	 */
+	public void prepareAsync() {
+		final CountDownLatch signal = new CountDownLatch(1);
+		readySignal = signal;
+		try {
+			preparer.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						prepareTorch();
+					} finally {
+						signal.countDown();
+					}
 				}
-			} else {
-				//Turn flash LED off.
-				params.setFlashMode(Parameters.FLASH_MODE_OFF);
-				mCamera.setParameters(params);
-				
-				/* removed for efficency but requires the 
-				 * utility to close properly  */
-				//releaseCamera(); 
-			}
+			});
+		} catch (RejectedExecutionException e){
+			signal.countDown();
+		}
+	}
+	
+	/** {@inheritDoc}
+	 * Waits for the last {@link #prepareAsync()}, if any. */
+	@Override
+	public boolean awaitReady(long timeout) throws InterruptedException {
+		final CountDownLatch signal = readySignal;
+		if (signal != null && !signal.await(timeout, TimeUnit.MILLISECONDS)){
+			return false;
 		}
+		final TorchDriver driver = torchDriver;
+		return driver != null && driver.isPrepared();
 	}
+	
 	/** Closes the utility safely and releases any lingering camera references.
 	 * To reopen, call {@link #setCameraSurfaceView(SurfaceView)}. 
 	 */
@@ -212,8 +250,31 @@ public class CameraFlashUtil implements SurfaceHolder.Callback {
 	}
 	
 	
+	/** Opens the camera, if needed, and prepares the torch driver. */
+	private void prepareTorch() {
+		final Camera camera = mCamera;
+		if (camera == null){
+			return;
+		}
+		synchronized (camera) {
+			if (camera != mCamera){
+				return; //closed while waiting.
+			}
+			if (!cameraActive){
+				initCamera();
+			}
+			if (cameraActive && torchDriver != null && !torchDriver.prepare()){
+				Log.w(LOGTAG, "Flash could not be prepared");
+			}
+		}
+	}
+	
 	/** Releases camera and sets the {@link #cameraActive} to false. */
 	private void releaseCamera() {
+		if (torchDriver != null){
+			torchDriver.release();
+			torchDriver = null;
+		}
 		mCamera.stopPreview();
 		mCamera.release();
 		cameraActive = false;
@@ -234,6 +295,7 @@ public class CameraFlashUtil implements SurfaceHolder.Callback {
 		
 		if (mCamera != null){
 			cameraActive = _setCameraPreview();
+			torchDriver = new PreparedTorchDriver<Parameters>(new CameraTorch(mCamera));
 		} 
 		return cameraActive;
 	}
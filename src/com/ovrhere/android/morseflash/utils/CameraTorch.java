@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 Jason J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.ovrhere.android.morseflash.utils;
+
+import android.hardware.Camera;
+import android.hardware.Camera.AutoFocusCallback;
+import android.hardware.Camera.Parameters;
+import android.util.Log;
+
+import com.ovrhere.android.morseflash.torch.TorchCamera;
+
+/**
+ * Adapts an open {@link Camera} to a {@link TorchCamera}.
+ * 
+ * @author Jason J.
+ * @version 0.1.0-20261017
+ */
+class CameraTorch implements TorchCamera<Parameters> {
+	/** The Log tag. */
+	final static private String LOGTAG = CameraTorch.class.getSimpleName();
+	
+	/** Dummy Autofocus callback for camera flash, see:
+	 *  http://stackoverflow.com/questions/5503480/use-camera-flashlight-in-android
+	 */
+	final static private AutoFocusCallback autoFocusCallback = new AutoFocusCallback() {
+        public void onAutoFocus(boolean success, Camera camera) {
+        }
+    };
+	
+	/** The camera to drive. */
+	final private Camera camera;
+	
+	/** @param camera The open camera to drive. */
+	public CameraTorch(Camera camera) {
+		this.camera = camera;
+	}
+	
+	@Override
+	public Parameters getParameters() {
+		return camera.getParameters();
+	}
+	
+	@Override
+	public boolean setFlashMode(Parameters params, boolean on) {
+		if (!on){
+			params.setFlashMode(Parameters.FLASH_MODE_OFF);
+			return false;
+		}
+		params.setFlashMode(Parameters.FLASH_MODE_TORCH);
+		String flashMode = params.getFlashMode();
+		if (	flashMode != null &&
+				!flashMode.contains(Parameters.FLASH_MODE_TORCH)){
+			//if torch mode not supported.
+			params.setFlashMode(Parameters.FLASH_MODE_ON);
+			return false;
+		}
+		return true;
+	}
+	
+	@Override
+	public void setParameters(Parameters params) {
+		camera.setParameters(params);
+	}
+	
+	@Override
+	public void startPreview() {
+		camera.startPreview();
+		//some devices only light the flash once focusing.
+		fireFlash();
+	}
+	
+	@Override
+	public void stopPreview() {
+		camera.stopPreview();
+	}
+	
+	@Override
+	public void fireFlash() {
+		try{
+			camera.autoFocus(autoFocusCallback);
+		} catch (Exception e){
+			//TODO determine which exceptions, if any, throw here
+			Log.w(LOGTAG, "Exception during autofocus: " + e);
+		}
+	}
+}